@@ -0,0 +1,78 @@
+package placement;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// CSV ingest at several file sizes: the year-only scanner on one and on all cores,
+// the dimension cube, and reopening the same data from its snapshot.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvIngestBenchmark {
+    @Param({ "10000", "1000000", "5000000" })
+    public long rows;
+
+    private File directory;
+    private File plain;
+    private File dimensional;
+
+    @Setup(Level.Trial)
+    public void writeFiles() throws IOException {
+        directory = Files.createTempDirectory("csv-bench").toFile();
+        plain = new File(directory, "plain.csv");
+        dimensional = new File(directory, "dimensional.csv");
+        SyntheticPlacements.writeCsv(plain, rows, 2000, 25, false, 42);
+        SyntheticPlacements.writeCsv(dimensional, rows, 2000, 25, true, 42);
+        // Leaves dimensional.csv.ptsnap behind for loadSnapshot
+        new IncrementalCsvLoader(dimensional).load();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFiles() {
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public long scanYears() throws IOException {
+        return CsvYearScanner.scanFile(plain).rows();
+    }
+
+    @Benchmark
+    public long scanYearsSingleThread() throws IOException {
+        return CsvYearScanner.scanFile(plain, 1).rows();
+    }
+
+    @Benchmark
+    public long ingestCube() throws IOException {
+        return ingestCube(Runtime.getRuntime().availableProcessors());
+    }
+
+    @Benchmark
+    public long ingestCubeSingleThread() throws IOException {
+        return ingestCube(1);
+    }
+
+    private long ingestCube(int threads) throws IOException {
+        try (FileChannel channel = FileChannel.open(dimensional.toPath(), StandardOpenOption.READ)) {
+            PlacementCube cube = PlacementCube.forHeader("Name,Year,Branch,Company");
+            cube.ingest(channel, 0, channel.size(), true, threads);
+            return cube.rows();
+        }
+    }
+
+    @Benchmark
+    public int loadSnapshot() throws IOException {
+        return CsvSnapshot.load(dimensional, new String[0]).cube.cells();
+    }
+}
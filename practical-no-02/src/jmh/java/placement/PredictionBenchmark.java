@@ -0,0 +1,102 @@
+package placement;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Prediction latency for one input, per input over a batch with the double
+// network and its float32 and int8 CompactNetwork copies, and for a ten year
+// ensemble forecast.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PredictionBenchmark {
+    private static final int BATCH = 1024;
+
+    private NeuralNetwork network;
+    private NeuralNetwork.Scratch scratch;
+    private double[] input;
+    private double[] output;
+    private double[][] batch;
+    private CompactNetwork float32;
+    private CompactNetwork int8;
+    private float[] compactBatch;
+    private float[] compactOutput;
+
+    private TrainedModel ensemble;
+    private int[] yearValues;
+    private int[] placedStudents;
+
+    @Setup(Level.Trial)
+    public void createModels() {
+        network = new NeuralNetwork(3, 10, 5, 1, 42);
+        scratch = network.newScratch();
+        input = new double[] { 0.5, 0.4, 0.02 };
+        output = new double[1];
+        SplittableRandom random = new SplittableRandom(42);
+        batch = new double[BATCH][];
+        for (int i = 0; i < BATCH; i++) {
+            batch[i] = new double[] { random.nextDouble(), random.nextDouble(), random.nextDouble() - 0.5 };
+        }
+        float32 = CompactNetwork.of(network, CompactNetwork.Precision.FLOAT32);
+        int8 = CompactNetwork.of(network, CompactNetwork.Precision.INT8);
+        compactBatch = new float[BATCH * 3];
+        for (int i = 0; i < BATCH; i++) {
+            for (int j = 0; j < 3; j++) {
+                compactBatch[i * 3 + j] = (float) batch[i][j];
+            }
+        }
+        compactOutput = new float[BATCH];
+
+        yearValues = SyntheticPlacements.years(2000, 25);
+        placedStudents = SyntheticPlacements.counts(25, 200, 42);
+        ensemble = ForecastEngine.trainEnsemble(yearValues, placedStudents, ForecastEngine.defaultOptions(),
+                ForecastEngine.DEFAULT_ENSEMBLE_SIZE, ForecastEngine.DEFAULT_SEED, null);
+    }
+
+    @Benchmark
+    public double single() {
+        network.predict(input, output, scratch);
+        return output[0];
+    }
+
+    // The allocating overload that callers without a Scratch use
+    @Benchmark
+    public double singleAllocating() {
+        return network.predict(input)[0];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public double batched() {
+        double sum = 0;
+        for (double[] row : batch) {
+            network.predict(row, output, scratch);
+            sum += output[0];
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public float[] batchedFloat32() {
+        float32.predict(compactBatch, BATCH, compactOutput);
+        return compactOutput;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public float[] batchedInt8() {
+        int8.predict(compactBatch, BATCH, compactOutput);
+        return compactOutput;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int ensembleForecast() {
+        return ForecastEngine.forecast(ensemble, yearValues, placedStudents, 2034).count(2034);
+    }
+}
@@ -0,0 +1,71 @@
+package placement;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Offscreen paints of a GraphPanel with an ensemble forecast highlighted: once
+// from the cached chart layer and once with the layer rebuilt. Series longer
+// than the panel is wide are drawn in buckets.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RenderBenchmark {
+    @Param({ "20", "1000", "5000" })
+    public int years;
+
+    private File directory;
+    private GraphPanel panel;
+    private BufferedImage image;
+
+    @Setup(Level.Trial)
+    public void createPanel() throws IOException {
+        directory = Files.createTempDirectory("render-bench").toFile();
+        File csv = new File(directory, "series.csv");
+        int firstYear = Math.max(1000, 2025 - years);
+        SyntheticPlacements.writeCsv(csv, years * 50L, firstYear, years, false, 42);
+
+        Workspace workspace = new Workspace();
+        Dataset dataset = workspace.open(csv);
+        ChartState.Series series = dataset.state().series;
+        dataset.setModel(ForecastEngine.trainEnsemble(series.yearValues, series.placedStudents,
+                ForecastEngine.defaultOptions(), ForecastEngine.DEFAULT_ENSEMBLE_SIZE, ForecastEngine.DEFAULT_SEED,
+                null));
+        dataset.highlight(String.valueOf(series.lastYear() + 5));
+        panel = new GraphPanel(workspace);
+        panel.setSize(800, 400);
+        image = new BufferedImage(800, 400, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFiles() {
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public BufferedImage cachedPaint() {
+        Graphics2D g = image.createGraphics();
+        panel.paint(g);
+        g.dispose();
+        return image;
+    }
+
+    @Benchmark
+    public BufferedImage fullRender() {
+        panel.discardChartCache();
+        Graphics2D g = image.createGraphics();
+        panel.paint(g);
+        g.dispose();
+        return image;
+    }
+}
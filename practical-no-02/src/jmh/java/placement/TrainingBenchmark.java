@@ -0,0 +1,58 @@
+package placement;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Training throughput in samples per second: every operation is one sample
+// passed forward and backward once.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TrainingBenchmark {
+    private static final int SAMPLES = 1024;
+    private static final int EPOCHS = 4;
+
+    @Param({ "1", "32", "256" })
+    public int batchSize;
+
+    @Param({ "1", "4" })
+    public int threads;
+
+    private List<double[]> inputs;
+    private List<double[]> outputs;
+    private NeuralNetwork network;
+    private TrainingOptions options;
+
+    @Setup(Level.Trial)
+    public void createSamples() {
+        SplittableRandom random = new SplittableRandom(42);
+        inputs = new ArrayList<>();
+        outputs = new ArrayList<>();
+        for (int i = 0; i < SAMPLES; i++) {
+            inputs.add(new double[] { random.nextDouble(), random.nextDouble(), random.nextDouble() - 0.5 });
+            outputs.add(new double[] { random.nextDouble() });
+        }
+        network = new NeuralNetwork(3, 10, 5, 1, 42);
+        options = new TrainingOptions().epochs(EPOCHS).batchSize(batchSize).threads(threads)
+                .optimizer(Optimizer::adam).learningRate(0.01);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES * EPOCHS)
+    public boolean miniBatch() {
+        return network.train(inputs, outputs, options, (epoch, loss) -> true);
+    }
+
+    // The original per sample SGD loop; batchSize and threads do not apply
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES * EPOCHS)
+    public boolean perSampleSgd() {
+        return network.train(inputs, outputs, EPOCHS, 0.1, (epoch, loss) -> true);
+    }
+}
@@ -0,0 +1,94 @@
+package placement;
+
+import java.awt.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import javax.swing.*;
+
+// Runs a HyperparameterSearch in the background with a progress dialog, then
+// installs the winning model and shows the ranked candidates.
+class AutoTuneJob extends SwingWorker<HyperparameterSearch.Result, int[]> {
+    private final Component owner;
+    private final Dataset dataset;
+    private final Runnable onFinished;
+
+    private final ChartState.Series series;
+    private final int[] yearValues;
+    private final int[] placedStudents;
+
+    private final JDialog dialog;
+    private final JProgressBar progressBar;
+
+    AutoTuneJob(Component owner, Dataset dataset, Runnable onFinished) {
+        this.owner = owner;
+        this.dataset = dataset;
+        this.onFinished = onFinished;
+        series = dataset.state().series;
+        this.yearValues = series.yearValues;
+        this.placedStudents = series.placedStudents;
+
+        dialog = new JDialog(SwingUtilities.getWindowAncestor(owner), "Tuning Model");
+        dialog.setLayout(new BorderLayout(10, 10));
+
+        progressBar = new JProgressBar();
+        progressBar.setStringPainted(true);
+        progressBar.setString("Evaluating candidates");
+        progressBar.setPreferredSize(new Dimension(400, 30));
+        dialog.add(progressBar, BorderLayout.CENTER);
+
+        JButton cancelButton = new JButton("Cancel");
+        cancelButton.addActionListener(e -> cancel(true));
+        JPanel buttonsPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        buttonsPanel.add(cancelButton);
+        dialog.add(buttonsPanel, BorderLayout.SOUTH);
+
+        dialog.setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+        dialog.pack();
+        dialog.setLocationRelativeTo(owner);
+    }
+
+    void start() {
+        dialog.setVisible(true);
+        execute();
+    }
+
+    @Override
+    protected HyperparameterSearch.Result doInBackground() throws InterruptedException {
+        return new HyperparameterSearch().run(yearValues, placedStudents, (done, total) -> {
+            publish(new int[] { done, total });
+            return !isCancelled();
+        });
+    }
+
+    @Override
+    protected void process(java.util.List<int[]> chunks) {
+        int[] last = chunks.get(chunks.size() - 1);
+        progressBar.setMaximum(last[1]);
+        progressBar.setValue(last[0]);
+        progressBar.setString(String.format("Evaluated %d of up to %d candidates", last[0], last[1]));
+    }
+
+    @Override
+    protected void done() {
+        dialog.dispose();
+        onFinished.run();
+        try {
+            HyperparameterSearch.Result result = get();
+            if (result == null)
+                return;
+            dataset.setModel(series, result.model);
+            JTextArea report = new JTextArea(result.report());
+            report.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+            report.setEditable(false);
+            JScrollPane scroll = new JScrollPane(report);
+            scroll.setPreferredSize(new Dimension(620, 320));
+            JOptionPane.showMessageDialog(owner, scroll, "Best: " + result.best(), JOptionPane.INFORMATION_MESSAGE);
+        } catch (CancellationException e) {
+            JOptionPane.showMessageDialog(owner, "Tuning cancelled.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            JOptionPane.showMessageDialog(owner, "Tuning failed: " + e.getCause());
+        }
+    }
+}
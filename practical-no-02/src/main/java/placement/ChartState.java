@@ -0,0 +1,114 @@
+package placement;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Everything a GraphPanel paints for one dataset, frozen at one moment: the series,
+// the model and the highlighted year. Changes build a new state and publish it
+// through Dataset, so paint reads one reference and never sees the bars of one
+// load with the forecast of another. Arrays are shared between states and never
+// written after construction.
+final class ChartState {
+    static final ChartState EMPTY = new ChartState(Series.EMPTY, null, null);
+
+    final Series series;
+    final TrainedModel model;
+    // null when no year is highlighted
+    final Highlight highlight;
+
+    ChartState(Series series, TrainedModel model, Highlight highlight) {
+        this.series = series;
+        this.model = model;
+        this.highlight = highlight;
+    }
+
+    ChartState withModel(TrainedModel trained) {
+        return new ChartState(series, trained, highlight);
+    }
+
+    ChartState withHighlight(Highlight updated) {
+        return new ChartState(series, model, updated);
+    }
+
+    boolean hasData() {
+        return !series.histogram.isEmpty();
+    }
+
+    static final class Series {
+        private static final AtomicLong VERSIONS = new AtomicLong();
+        static final Series EMPTY = new Series(new YearHistogram(), null);
+
+        // Unique across datasets, so the render cache can key on it alone
+        final long version = VERSIONS.incrementAndGet();
+        final YearHistogram histogram;
+        // Years parsed once at ingest; the String form is kept only for axis labels
+        final int[] yearValues;
+        final String[] years;
+        final int[] placedStudents;
+        // Largest historical count and the bucket pyramid, computed once per series
+        final int maxActual;
+        final SeriesPyramid pyramid;
+        final long fingerprint;
+        // Value chosen per dimension column of the loader, null for all values
+        final String[] selection;
+
+        Series(YearHistogram histogram, String[] selection) {
+            this.histogram = histogram;
+            this.selection = selection;
+            yearValues = histogram.years();
+            placedStudents = histogram.counts();
+            years = new String[yearValues.length];
+            for (int i = 0; i < yearValues.length; i++) {
+                years[i] = String.valueOf(yearValues[i]);
+            }
+            maxActual = Arrays.stream(placedStudents).max().orElse(1);
+            pyramid = new SeriesPyramid(placedStudents);
+            fingerprint = histogram.fingerprint();
+        }
+
+        boolean isSliced() {
+            if (selection == null)
+                return false;
+            for (String value : selection) {
+                if (value != null)
+                    return true;
+            }
+            return false;
+        }
+
+        // Equal for series of the same slice; empty for the whole file
+        List<String> selectionKey() {
+            return isSliced() ? Arrays.asList(selection) : List.of();
+        }
+
+        int lastYear() {
+            return yearValues[yearValues.length - 1];
+        }
+
+        int lastCount() {
+            return placedStudents[placedStudents.length - 1];
+        }
+    }
+
+    static final class Highlight {
+        final String year;
+        final int count;
+        // Change against the last known year, null for years in the data
+        final Double percentage;
+        final boolean isDLPrediction;
+        // Predicted counts for the years between the last known year and this one
+        final int[] lead;
+        // Forecast behind the predicted bars, for the ensemble band; null for known years
+        final Forecast range;
+
+        Highlight(String year, int count, Double percentage, boolean isDLPrediction, int[] lead, Forecast range) {
+            this.year = year;
+            this.count = count;
+            this.percentage = percentage;
+            this.isDLPrediction = isDLPrediction;
+            this.lead = lead;
+            this.range = range;
+        }
+    }
+}
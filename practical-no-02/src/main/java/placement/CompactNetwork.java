@@ -0,0 +1,242 @@
+package placement;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+// Inference-only copy of a trained NeuralNetwork for serving many predictions.
+// Weights are float32, or int8 with one scale per neuron (a quarter of the
+// float32 size), and the output sigmoid is a lookup table with linear
+// interpolation instead of Math.exp. predict() runs a whole batch of input rows
+// in one call, a tile of rows through each layer at a time, in tile buffers the
+// instance keeps, so one instance must not predict on two threads at once.
+// Outputs drift from the double network by a small amount that drift() measures.
+final class CompactNetwork {
+    enum Precision {
+        FLOAT32, INT8
+    }
+
+    // The table covers [-SIGMOID_RANGE, SIGMOID_RANGE]; past it sigmoid is within
+    // 1.2e-7 of 0 or 1, and interpolation between entries is within 1e-6
+    private static final float SIGMOID_RANGE = 16f;
+    private static final int SIGMOID_STEPS = 4096;
+    private static final float SIGMOID_SCALE = SIGMOID_STEPS / (2 * SIGMOID_RANGE);
+    private static final float[] SIGMOID = new float[SIGMOID_STEPS + 1];
+    // Rows run through the layers together
+    private static final int TILE = 256;
+
+    static {
+        for (int i = 0; i < SIGMOID.length; i++) {
+            double x = i / (double) SIGMOID_SCALE - SIGMOID_RANGE;
+            SIGMOID[i] = (float) (1.0 / (1.0 + Math.exp(-x)));
+        }
+    }
+
+    final Precision precision;
+    private final int inputSize;
+    private final int hiddenSize1;
+    private final int hiddenSize2;
+    private final int outputSize;
+
+    // Same row-major layout as NeuralNetwork; only the array for the precision is set
+    private final float[][] weights = new float[3][];
+    private final byte[][] quantized = new byte[3][];
+    // Per row of each quantized matrix: weight = quantized * scale
+    private final float[][] scales = new float[3][];
+    private final float[][] biases = new float[3][];
+
+    // Activations of one tile, reused by every predict call
+    private final float[] in;
+    private final float[] hidden1;
+    private final float[] hidden2;
+    private final float[] out;
+
+    private CompactNetwork(NeuralNetwork network, Precision precision) {
+        this.precision = precision;
+        inputSize = network.inputSize();
+        hiddenSize1 = network.hiddenSize1();
+        hiddenSize2 = network.hiddenSize2();
+        outputSize = network.outputSize();
+
+        double[][] parameters = network.parameters();
+        int[] columns = { inputSize, hiddenSize1, hiddenSize2 };
+        for (int layer = 0; layer < 3; layer++) {
+            double[] matrix = parameters[layer];
+            if (precision == Precision.FLOAT32)
+                weights[layer] = toFloat(matrix);
+            else
+                quantize(layer, matrix, columns[layer]);
+            biases[layer] = toFloat(parameters[3 + layer]);
+        }
+        in = new float[inputSize * TILE];
+        hidden1 = new float[hiddenSize1 * TILE];
+        hidden2 = new float[hiddenSize2 * TILE];
+        out = new float[outputSize * TILE];
+    }
+
+    static CompactNetwork of(NeuralNetwork network, Precision precision) {
+        return new CompactNetwork(network, precision);
+    }
+
+    static CompactNetwork[] of(TrainedModel model, Precision precision) {
+        CompactNetwork[] members = new CompactNetwork[model.members.length];
+        for (int m = 0; m < members.length; m++) {
+            members[m] = new CompactNetwork(model.members[m], precision);
+        }
+        return members;
+    }
+
+    private static float[] toFloat(double[] values) {
+        float[] result = new float[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = (float) values[i];
+        }
+        return result;
+    }
+
+    // Symmetric per-row quantization: the largest weight of a row maps to +-127
+    private void quantize(int layer, double[] matrix, int columns) {
+        int rows = matrix.length / columns;
+        byte[] q = new byte[matrix.length];
+        float[] rowScales = new float[rows];
+        for (int j = 0; j < rows; j++) {
+            double max = 0;
+            for (int i = 0; i < columns; i++) {
+                max = Math.max(max, Math.abs(matrix[j * columns + i]));
+            }
+            double scale = max > 0 ? max / 127 : 1;
+            rowScales[j] = (float) scale;
+            for (int i = 0; i < columns; i++) {
+                q[j * columns + i] = (byte) Math.round(matrix[j * columns + i] / scale);
+            }
+        }
+        quantized[layer] = q;
+        scales[layer] = rowScales;
+    }
+
+    int inputSize() {
+        return inputSize;
+    }
+
+    int outputSize() {
+        return outputSize;
+    }
+
+    static float sigmoid(float x) {
+        float position = (x + SIGMOID_RANGE) * SIGMOID_SCALE;
+        if (position <= 0)
+            return SIGMOID[0];
+        if (position >= SIGMOID_STEPS)
+            return SIGMOID[SIGMOID_STEPS];
+        int index = (int) position;
+        float fraction = position - index;
+        return SIGMOID[index] + fraction * (SIGMOID[index + 1] - SIGMOID[index]);
+    }
+
+    // inputs holds rows * inputSize values row after row; outputs receives
+    // rows * outputSize values the same way
+    void predict(float[] inputs, int rows, float[] outputs) {
+        int tile = Math.min(rows, TILE);
+        for (int first = 0; first < rows; first += tile) {
+            int n = Math.min(tile, rows - first);
+            for (int r = 0; r < n; r++) {
+                for (int i = 0; i < inputSize; i++) {
+                    in[i * tile + r] = inputs[(first + r) * inputSize + i];
+                }
+            }
+            layer(0, in, inputSize, hidden1, hiddenSize1, tile, n, true);
+            layer(1, hidden1, hiddenSize1, hidden2, hiddenSize2, tile, n, true);
+            layer(2, hidden2, hiddenSize2, out, outputSize, tile, n, false);
+            for (int r = 0; r < n; r++) {
+                for (int j = 0; j < outputSize; j++) {
+                    outputs[(first + r) * outputSize + j] = sigmoid(out[j * tile + r]);
+                }
+            }
+        }
+    }
+
+    // Activations are stored a neuron at a time, stride values apart, so each
+    // weight is applied to n contiguous values in a loop the JIT vectorizes
+    private void layer(int layer, float[] in, int columns, float[] out, int neurons, int stride, int n,
+            boolean relu) {
+        float[] bias = biases[layer];
+        for (int j = 0; j < neurons; j++) {
+            int o = j * stride;
+            Arrays.fill(out, o, o + n, bias[j]);
+            for (int i = 0; i < columns; i++) {
+                float w = weight(layer, j * columns + i, j);
+                int c = i * stride;
+                for (int r = 0; r < n; r++) {
+                    out[o + r] += w * in[c + r];
+                }
+            }
+            if (relu) {
+                for (int r = 0; r < n; r++) {
+                    out[o + r] = Math.max(0f, out[o + r]);
+                }
+            }
+        }
+    }
+
+    private float weight(int layer, int index, int row) {
+        return precision == Precision.FLOAT32 ? weights[layer][index] : quantized[layer][index] * scales[layer][row];
+    }
+
+    // How far the outputs of compact stray from reference over the given rows
+    static final class Drift {
+        final Precision precision;
+        final int rows;
+        final double max;
+        final double mean;
+
+        Drift(Precision precision, int rows, double max, double mean) {
+            this.precision = precision;
+            this.rows = rows;
+            this.max = max;
+            this.mean = mean;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s drift over %d rows: max %.2e, mean %.2e", precision, rows, max,
+                    mean);
+        }
+    }
+
+    Drift drift(NeuralNetwork reference, double[][] inputs) {
+        float[] batch = new float[inputs.length * inputSize];
+        for (int r = 0; r < inputs.length; r++) {
+            for (int i = 0; i < inputSize; i++) {
+                batch[r * inputSize + i] = (float) inputs[r][i];
+            }
+        }
+        float[] compact = new float[inputs.length * outputSize];
+        predict(batch, inputs.length, compact);
+
+        double[] expected = new double[outputSize];
+        NeuralNetwork.Scratch scratch = reference.newScratch();
+        double max = 0;
+        double sum = 0;
+        for (int r = 0; r < inputs.length; r++) {
+            reference.predict(inputs[r], expected, scratch);
+            for (int j = 0; j < outputSize; j++) {
+                double error = Math.abs(expected[j] - compact[r * outputSize + j]);
+                max = Math.max(max, error);
+                sum += error;
+            }
+        }
+        return new Drift(precision, inputs.length, max, inputs.length == 0 ? 0 : sum / (inputs.length * outputSize));
+    }
+
+    // Random inputs over the range forecasts visit: years up to horizon past the
+    // series, counts up to 1.5 times the training maximum and trends of +-50%
+    static double[][] sampleInputs(int years, int horizon, int rows, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double[][] inputs = new double[rows][];
+        for (int r = 0; r < rows; r++) {
+            inputs[r] = new double[] { random.nextDouble() * (years + horizon) / 10.0, random.nextDouble() * 1.5,
+                    random.nextDouble() - 0.5 };
+        }
+        return inputs;
+    }
+}
@@ -0,0 +1,296 @@
+package placement;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+// Parsed contents of a placement CSV, saved next to it as <csv>.ptsnap so the
+// next session maps a few kilobytes instead of re-parsing the text. A load that
+// asks for particular dimension columns gets <csv>.<key>.ptsnap instead, so loads
+// of the same file with other columns do not overwrite each other's snapshot. Big endian:
+//   int magic 'PTSN', int version
+//   long source size, long source mtime, long offset of the next unparsed line
+//   string header, int n + n strings: dimension columns asked for
+//   int d, then per dimension: string name, int n + n strings: values in code order
+//   int cells, then columns ordered by year:
+//     varint year deltas, d code columns (1, 2 or 4 bytes each), varint counts
+//   int pending year (-1 for none), d ints: pending codes (-1 for an unknown value)
+//   long CRC32 of everything before it
+// Strings are an int length and UTF-8 bytes. A snapshot only counts when the CSV
+// still has the recorded size and modification time.
+final class CsvSnapshot {
+    static final int MAGIC = 0x5054534E;
+    static final int VERSION = 1;
+
+    final long sourceSize;
+    final long offset;
+    final String header;
+    // Set when the CSV has dimension columns, otherwise histogram is
+    final PlacementCube cube;
+    final YearHistogram histogram;
+    final int pendingYear;
+
+    private CsvSnapshot(long sourceSize, long offset, String header, PlacementCube cube, YearHistogram histogram,
+            int pendingYear) {
+        this.sourceSize = sourceSize;
+        this.offset = offset;
+        this.header = header;
+        this.cube = cube;
+        this.histogram = histogram;
+        this.pendingYear = pendingYear;
+    }
+
+    static File fileFor(File csv, String... requested) {
+        if (requested.length == 0)
+            return new File(csv.getPath() + ".ptsnap");
+        return new File(csv.getPath() + String.format(".%08x.ptsnap", Arrays.hashCode(requested)));
+    }
+
+    // sourceModified is read before the scan, so an append racing with it makes the
+    // snapshot look stale rather than complete
+    static void save(File csv, long sourceSize, long sourceModified, long offset, String header,
+            String[] requested, PlacementCube cube, YearHistogram histogram, int pendingYear) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(sourceSize);
+        out.writeLong(sourceModified);
+        out.writeLong(offset);
+        writeString(out, header);
+        out.writeInt(requested.length);
+        for (String name : requested) {
+            writeString(out, name);
+        }
+
+        if (cube != null) {
+            String[] dimensions = cube.dimensions();
+            out.writeInt(dimensions.length);
+            for (int d = 0; d < dimensions.length; d++) {
+                writeString(out, dimensions[d]);
+                out.writeInt(cube.valueCount(d));
+                for (int code = 0; code < cube.valueCount(d); code++) {
+                    byte[] value = cube.valueBytes(d, code);
+                    out.writeInt(value.length);
+                    out.write(value);
+                }
+            }
+
+            // Sorted by year so the year column is small non-negative deltas
+            long[] order = new long[cube.cells()];
+            for (int cell = 0; cell < order.length; cell++) {
+                order[cell] = (long) cube.cellYear(cell) << 32 | cell;
+            }
+            Arrays.sort(order);
+            out.writeInt(order.length);
+            int previous = 0;
+            for (long entry : order) {
+                int year = (int) (entry >>> 32);
+                writeVarint(out, year - previous);
+                previous = year;
+            }
+            for (int d = 0; d < dimensions.length; d++) {
+                int width = codeWidth(cube.valueCount(d));
+                for (long entry : order) {
+                    int code = cube.cellCode(d, (int) entry);
+                    if (width == 1)
+                        out.writeByte(code);
+                    else if (width == 2)
+                        out.writeShort(code);
+                    else
+                        out.writeInt(code);
+                }
+            }
+            for (long entry : order) {
+                writeVarint(out, cube.cellCount((int) entry));
+            }
+            out.writeInt(cube.pendingYear());
+            for (int code : cube.pendingCodes()) {
+                out.writeInt(code);
+            }
+        } else {
+            int[] years = histogram.years();
+            int[] counts = histogram.counts();
+            out.writeInt(0);
+            out.writeInt(years.length);
+            int previous = 0;
+            for (int year : years) {
+                writeVarint(out, year - previous);
+                previous = year;
+            }
+            for (int count : counts) {
+                writeVarint(out, count);
+            }
+            out.writeInt(pendingYear);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        out.writeLong(crc.getValue());
+        out.flush();
+
+        // Write next to the target and move into place so readers never see half a
+        // file; the temp name is unique, so processes saving the same snapshot at
+        // once each move a whole file and the last one wins
+        Path path = fileFor(csv, requested).toPath().toAbsolutePath();
+        Path temp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, bytes.toByteArray());
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Returns null when there is no snapshot or the CSV changed since it was written
+    static CsvSnapshot load(File csv, String[] requested) throws IOException {
+        Path path = fileFor(csv, requested).toPath();
+        if (!Files.isRegularFile(path))
+            return null;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 8 + 3 * 8 + 8)
+                throw new IOException("Not a placement snapshot: " + path);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            if (buffer.getInt() != MAGIC)
+                throw new IOException("Not a placement snapshot: " + path);
+            int version = buffer.getInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported snapshot version " + version + ": " + path);
+            long sourceSize = buffer.getLong();
+            if (sourceSize != csv.length() || buffer.getLong() != csv.lastModified())
+                return null;
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate().position(0).limit((int) size - 8));
+            if (crc.getValue() != buffer.getLong((int) size - 8))
+                throw new IOException("Snapshot checksum mismatch: " + path);
+
+            try {
+                return read(buffer, sourceSize, requested);
+            } catch (RuntimeException e) {
+                throw new IOException("Corrupt snapshot: " + path, e);
+            }
+        }
+    }
+
+    private static CsvSnapshot read(ByteBuffer buffer, long sourceSize, String[] requested) {
+        long offset = buffer.getLong();
+        String header = readString(buffer);
+        String[] saved = new String[buffer.getInt()];
+        for (int i = 0; i < saved.length; i++) {
+            saved[i] = readString(buffer);
+        }
+        // Asked for other dimension columns than were saved
+        if (!Arrays.equals(saved, requested))
+            return null;
+
+        int dimensions = buffer.getInt();
+        if (dimensions == 0) {
+            int cells = buffer.getInt();
+            int[] years = new int[cells];
+            int year = 0;
+            for (int i = 0; i < cells; i++) {
+                year += readVarint(buffer);
+                years[i] = year;
+            }
+            YearHistogram histogram = new YearHistogram();
+            for (int i = 0; i < cells; i++) {
+                histogram.add(years[i], readVarint(buffer));
+            }
+            return new CsvSnapshot(sourceSize, offset, header, null, histogram, buffer.getInt());
+        }
+
+        // The saved columns, as the default ones were picked from the data
+        String[] names = new String[dimensions];
+        byte[][][] values = new byte[dimensions][][];
+        int[] valueCounts = new int[dimensions];
+        for (int d = 0; d < dimensions; d++) {
+            names[d] = readString(buffer);
+            valueCounts[d] = buffer.getInt();
+            values[d] = new byte[valueCounts[d]][];
+            for (int code = 0; code < valueCounts[d]; code++) {
+                values[d][code] = new byte[buffer.getInt()];
+                buffer.get(values[d][code]);
+            }
+        }
+        PlacementCube cube = PlacementCube.forHeader(header, names);
+        if (cube == null || !Arrays.equals(cube.dimensions(), names))
+            return null;
+        for (int d = 0; d < dimensions; d++) {
+            for (byte[] value : values[d]) {
+                cube.restoreValue(d, value);
+            }
+        }
+
+        int cells = buffer.getInt();
+        int[] years = new int[cells];
+        int year = 0;
+        for (int i = 0; i < cells; i++) {
+            year += readVarint(buffer);
+            years[i] = year;
+        }
+        int[][] codes = new int[dimensions][cells];
+        for (int d = 0; d < dimensions; d++) {
+            int width = codeWidth(valueCounts[d]);
+            for (int i = 0; i < cells; i++) {
+                codes[d][i] = width == 1 ? buffer.get() & 0xFF : width == 2 ? buffer.getShort() & 0xFFFF : buffer.getInt();
+            }
+        }
+        int[] key = new int[dimensions];
+        for (int i = 0; i < cells; i++) {
+            for (int d = 0; d < dimensions; d++) {
+                key[d] = codes[d][i];
+            }
+            cube.restoreCell(years[i], key, readVarint(buffer));
+        }
+        int pendingYear = buffer.getInt();
+        for (int d = 0; d < dimensions; d++) {
+            key[d] = buffer.getInt();
+        }
+        if (pendingYear >= 0)
+            cube.restorePending(pendingYear, key);
+        return new CsvSnapshot(sourceSize, offset, header, cube, null, -1);
+    }
+
+    private static int codeWidth(int values) {
+        return values <= 0x100 ? 1 : values <= 0x10000 ? 2 : 4;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // 7 bits per byte, low bits first; values are never negative
+    private static void writeVarint(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0;; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0)
+                return value;
+        }
+    }
+}
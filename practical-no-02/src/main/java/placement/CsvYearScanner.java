@@ -0,0 +1,267 @@
+package placement;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+// Counts placed students per year straight from the bytes of a 'Name,Year' CSV.
+// The file is memory mapped in fixed size windows, so files larger than 2 GB work
+// and no String, array or boxed Integer is created per row.
+class CsvYearScanner {
+    static final int MAX_YEAR = 9999;
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+    // Below this size a single thread is faster than splitting the file
+    static final long MIN_SEGMENT_SIZE = 16L * 1024 * 1024;
+
+    // long, as a single year of a file with billions of rows can pass 2^31
+    private final long[] counts = new long[MAX_YEAR + 1];
+
+    // Per line state, carried across window boundaries
+    private boolean skipLine;
+    private int field;
+    private int year;
+    private int digits;
+    private boolean valid = true;
+    private boolean spaceAfterDigits;
+
+    private long rows;
+    private long bytes;
+    private long lineEnd;
+    private long elapsedNanos;
+
+    CsvYearScanner(boolean skipHeader) {
+        this.skipLine = skipHeader;
+    }
+
+    static CsvYearScanner scanFile(File file) throws IOException {
+        return scanFile(file, Runtime.getRuntime().availableProcessors());
+    }
+
+    static CsvYearScanner scanFile(File file, int threads) throws IOException {
+        CsvYearScanner result;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            result = scanRange(channel, 0, channel.size(), true, threads);
+        }
+        result.finish();
+        return result;
+    }
+
+    // Splits [from, to) at line boundaries into one segment per thread, counts each
+    // segment into its own table and merges the tables. Counts are identical to a
+    // single threaded scan because every line falls into exactly one segment.
+    // An unterminated last line is left pending rather than counted.
+    static CsvYearScanner scanRange(FileChannel channel, long from, long to, boolean skipHeader, int threads)
+            throws IOException {
+        long start = System.nanoTime();
+        int segments = (int) Math.max(1, Math.min(threads, (to - from) / MIN_SEGMENT_SIZE));
+        long[] bounds = new long[segments + 1];
+        bounds[0] = from;
+        for (int k = 1; k < segments; k++) {
+            bounds[k] = Math.max(bounds[k - 1], lineStartAtOrAfter(channel, from + (to - from) * k / segments, to));
+        }
+        bounds[segments] = to;
+
+        CsvYearScanner result = new CsvYearScanner(skipHeader);
+        result.lineEnd = from;
+        if (segments == 1) {
+            result.scan(channel, from, to);
+            result.elapsedNanos = System.nanoTime() - start;
+            return result;
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(segments);
+        try {
+            List<Future<CsvYearScanner>> parts = new ArrayList<>();
+            for (int k = 0; k < segments; k++) {
+                final long segmentStart = bounds[k];
+                final long segmentEnd = bounds[k + 1];
+                final boolean first = k == 0;
+                parts.add(pool.submit(() -> {
+                    CsvYearScanner part = new CsvYearScanner(first && skipHeader);
+                    part.scan(channel, segmentStart, segmentEnd);
+                    return part;
+                }));
+            }
+
+            // Merged in file order, so the pending line state ends up being the last segment's
+            for (Future<CsvYearScanner> part : parts) {
+                result.merge(part.get());
+            }
+            result.elapsedNanos = System.nanoTime() - start;
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("CSV scan interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw new IOException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // First offset >= position that begins a line
+    static long lineStartAtOrAfter(FileChannel channel, long position, long size) throws IOException {
+        if (position == 0)
+            return 0;
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long offset = position - 1;
+        while (offset < size) {
+            buffer.clear();
+            int n = channel.read(buffer, offset);
+            if (n <= 0)
+                break;
+            for (int i = 0; i < n; i++) {
+                if (buffer.get(i) == '\n')
+                    return offset + i + 1;
+            }
+            offset += n;
+        }
+        return size;
+    }
+
+    private void merge(CsvYearScanner other) {
+        for (int y = 0; y <= MAX_YEAR; y++) {
+            counts[y] += other.counts[y];
+        }
+        rows += other.rows;
+        bytes += other.bytes;
+        lineEnd = Math.max(lineEnd, other.lineEnd);
+        skipLine = other.skipLine;
+        field = other.field;
+        year = other.year;
+        digits = other.digits;
+        valid = other.valid;
+        spaceAfterDigits = other.spaceAfterDigits;
+    }
+
+    void scan(FileChannel channel, long start, long end) throws IOException {
+        long position = start;
+        while (position < end) {
+            int size = (int) Math.min(WINDOW_SIZE, end - position);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+            int lastNewline = scanWindow(window, size);
+            if (lastNewline >= 0)
+                lineEnd = position + lastNewline + 1;
+            position += size;
+        }
+        bytes += end - start;
+    }
+
+    // Returns the index of the last newline in the window, or -1
+    private int scanWindow(MappedByteBuffer window, int size) {
+        // Work on locals inside the hot loop and write the state back afterwards
+        boolean skipLine = this.skipLine;
+        int field = this.field;
+        int year = this.year;
+        int digits = this.digits;
+        boolean valid = this.valid;
+        boolean spaceAfterDigits = this.spaceAfterDigits;
+        int lastNewline = -1;
+
+        for (int i = 0; i < size; i++) {
+            byte b = window.get(i);
+            if (b == '\n') {
+                if (!skipLine && field >= 1 && valid && digits > 0) {
+                    counts[year]++;
+                    rows++;
+                }
+                skipLine = false;
+                field = 0;
+                year = 0;
+                digits = 0;
+                valid = true;
+                spaceAfterDigits = false;
+                lastNewline = i;
+            } else if (skipLine) {
+                // header line
+            } else if (b == ',') {
+                field++;
+            } else if (field == 1) {
+                if (b >= '0' && b <= '9') {
+                    if (spaceAfterDigits || digits == 4) {
+                        valid = false;
+                    } else {
+                        year = year * 10 + (b - '0');
+                        digits++;
+                    }
+                } else if (b == ' ' || b == '\t' || b == '\r') {
+                    if (digits > 0)
+                        spaceAfterDigits = true;
+                } else {
+                    valid = false;
+                }
+            }
+        }
+
+        this.skipLine = skipLine;
+        this.field = field;
+        this.year = year;
+        this.digits = digits;
+        this.valid = valid;
+        this.spaceAfterDigits = spaceAfterDigits;
+        return lastNewline;
+    }
+
+    // Year of the unterminated line scanned so far, or -1 if it would not be counted.
+    // A line still being written may stop inside the year, so the year only counts
+    // once it has 4 digits or something after it.
+    int pendingYear() {
+        boolean complete = digits == 4 || spaceAfterDigits || field > 1;
+        return complete && countsLine() ? year : -1;
+    }
+
+    private boolean countsLine() {
+        return !skipLine && field >= 1 && valid && digits > 0;
+    }
+
+    // Offset just past the last newline scanned, where the next complete line starts
+    long lineEnd() {
+        return lineEnd;
+    }
+
+    // Counts a last line that has no trailing newline
+    void finish() {
+        if (countsLine()) {
+            counts[year]++;
+            rows++;
+        }
+        skipLine = false;
+        field = 0;
+        year = 0;
+        digits = 0;
+        valid = true;
+        spaceAfterDigits = false;
+    }
+
+    YearHistogram histogram() {
+        YearHistogram histogram = new YearHistogram();
+        for (int y = 0; y <= MAX_YEAR; y++) {
+            histogram.add(y, Math.toIntExact(counts[y]));
+        }
+        return histogram;
+    }
+
+    long rows() {
+        return rows;
+    }
+
+    long bytes() {
+        return bytes;
+    }
+
+    double rowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rows * 1e9 / elapsedNanos;
+    }
+
+    String summary() {
+        return String.format("Loaded %d rows (%d bytes) in %.1f ms, %.0f rows/s",
+                rows, bytes, elapsedNanos / 1e6, rowsPerSecond());
+    }
+}
@@ -0,0 +1,198 @@
+package placement;
+
+import java.io.*;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+// One CSV open in a Workspace. Its ChartState is only ever replaced as a whole by
+// compare-and-set, so loads, watcher refreshes, training jobs and predictions on
+// different threads each publish a consistent state and readers take no lock.
+// A change that loses the race is recomputed from the newer state.
+final class Dataset {
+    // Years forecast beyond the one asked for, so nearby queries reuse the result
+    private static final int FORECAST_MARGIN = 10;
+
+    final IncrementalCsvLoader loader;
+    private final AtomicReference<ChartState> state = new AtomicReference<>(ChartState.EMPTY);
+    // The model of each selection, by Series.selectionKey(). A network is scaled
+    // to the counts and years of the series it was trained on, so switching the
+    // selection switches the model too, and a slice without one has none.
+    private final Map<List<String>, TrainedModel> models = new ConcurrentHashMap<>();
+    private final PredictionCache predictions;
+    private final Consumer<Dataset> onChange;
+
+    Dataset(File file, PredictionCache predictions, Consumer<Dataset> onChange) {
+        this.loader = new IncrementalCsvLoader(file);
+        this.predictions = predictions;
+        this.onChange = onChange;
+    }
+
+    File file() {
+        return loader.file();
+    }
+
+    ChartState state() {
+        return state.get();
+    }
+
+    private ChartState update(UnaryOperator<ChartState> change) {
+        ChartState updated = state.updateAndGet(change);
+        onChange.accept(this);
+        return updated;
+    }
+
+    void load() throws IOException {
+        loader.load();
+        publishSeries();
+        loadSavedModel();
+    }
+
+    // Parses only the rows appended since the last load
+    boolean refresh() throws IOException {
+        if (!loader.refresh())
+            return false;
+        publishSeries();
+        return true;
+    }
+
+    // The histogram is read inside the update, so a retry picks up the newest rows.
+    // A highlighted year is worked out again against the new rows, or dropped when
+    // it can no longer be shown.
+    private void publishSeries() {
+        update(s -> {
+            ChartState updated = new ChartState(
+                    new ChartState.Series(loader.histogram(s.series.selection), s.series.selection), s.model, null);
+            if (s.highlight == null)
+                return updated;
+            return updated.withHighlight(
+                    highlightFor(updated, s.highlight.year, Integer.parseInt(s.highlight.year)));
+        });
+    }
+
+    // Shows only the rows whose dimension column holds value, or all rows for null
+    void select(int dimension, String value) {
+        update(s -> {
+            String[] selection = s.series.selection != null ? s.series.selection.clone()
+                    : new String[loader.dimensions().length];
+            selection[dimension] = value;
+            ChartState.Series series = new ChartState.Series(loader.histogram(selection), selection);
+            return new ChartState(series, models.get(series.selectionKey()), null);
+        });
+    }
+
+    // How the last load or refresh went, for callers that report it
+    String lastSummary() {
+        return loader.lastSummary();
+    }
+
+    // A slice read straight from the loader, leaving the published state alone
+    YearHistogram histogram(String[] selection) {
+        return loader.histogram(selection);
+    }
+
+    String[] dimensions() {
+        return loader.dimensions();
+    }
+
+    String[] values(int dimension) {
+        return loader.values(dimension);
+    }
+
+    private void loadSavedModel() {
+        File file = ForecastEngine.modelFileFor(file());
+        if (state().series.isSliced() || !file.isFile())
+            return;
+        try {
+            TrainedModel saved = ModelFile.load(file.toPath());
+            useModel(saved);
+        } catch (IOException e) {
+            System.err.println("Ignoring saved model: " + e.getMessage());
+        }
+    }
+
+    // Models trained on a slice are kept in memory only, so they never replace
+    // the saved model of the whole file. Decided by the series the model was
+    // trained on, as the selection may have changed while it trained.
+    void setModel(ChartState.Series trainedOn, TrainedModel trained) {
+        useModel(trainedOn, trained);
+        if (trainedOn.isSliced())
+            return;
+        try {
+            ModelFile.save(trained, ForecastEngine.modelFileFor(file()).toPath());
+        } catch (IOException e) {
+            System.err.println("Could not save model: " + e.getMessage());
+        }
+    }
+
+    // Keeps the model for this run only, without saving it
+    void useModel(TrainedModel trained) {
+        useModel(state().series, trained);
+    }
+
+    // Shows the model only while the slice it was trained on is still selected
+    void useModel(ChartState.Series trainedOn, TrainedModel trained) {
+        models.put(trainedOn.selectionKey(), trained);
+        update(s -> s.series.selectionKey().equals(trainedOn.selectionKey()) ? s.withModel(trained) : s);
+    }
+
+    // Highlights a year of the data, or forecasts a later one with the current
+    // model. Returns false without a model or for a year that cannot be shown.
+    boolean highlight(String inputYear) {
+        int year;
+        try {
+            year = Integer.parseInt(inputYear);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        while (true) {
+            ChartState current = state.get();
+            ChartState.Highlight highlight = highlightFor(current, inputYear, year);
+            if (highlight == null)
+                return false;
+            if (state.compareAndSet(current, current.withHighlight(highlight))) {
+                onChange.accept(this);
+                return true;
+            }
+        }
+    }
+
+    private ChartState.Highlight highlightFor(ChartState state, String label, int year) {
+        ChartState.Series series = state.series;
+        if (state.model == null)
+            return null;
+        if (series.histogram.contains(year))
+            return new ChartState.Highlight(label, series.histogram.get(year), null, true, new int[0], null);
+        if (series.yearValues.length == 0 || year <= series.lastYear()
+                || (long) year - series.lastYear() > ForecastEngine.MAX_HORIZON)
+            return null;
+
+        int toYear = (int) Math.min((long) year + FORECAST_MARGIN, series.lastYear() + ForecastEngine.MAX_HORIZON);
+        Forecast range = ForecastEngine.forecast(state.model, series.fingerprint, series.yearValues,
+                series.placedStudents, toYear, predictions);
+        int predictedCount = range.count(year);
+        return new ChartState.Highlight(label, predictedCount,
+                ForecastEngine.changePercent(predictedCount, series.lastCount()), true, range.countsThrough(year - 1),
+                range);
+    }
+
+    void startWatching() throws IOException {
+        loader.startWatching(this::publishSeries);
+    }
+
+    void stopWatching() {
+        loader.stopWatching();
+    }
+
+    boolean isWatching() {
+        return loader.isWatching();
+    }
+
+    @Override
+    public String toString() {
+        return file().getName();
+    }
+}
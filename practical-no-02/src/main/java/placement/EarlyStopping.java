@@ -0,0 +1,43 @@
+package placement;
+
+// Ends training once the monitored loss stops improving or reaches a target.
+// The validation loss is monitored when TrainingOptions has a validation set,
+// otherwise the training loss.
+class EarlyStopping {
+    // Epochs without an improvement larger than minDelta before stopping
+    final int patience;
+    final double minDelta;
+    // Stop as soon as the monitored loss is at or below this value
+    final double targetLoss;
+
+    EarlyStopping(int patience, double minDelta) {
+        this(patience, minDelta, 0);
+    }
+
+    EarlyStopping(int patience, double minDelta, double targetLoss) {
+        this.patience = patience;
+        this.minDelta = minDelta;
+        this.targetLoss = targetLoss;
+    }
+
+    // Tracks one training run
+    final class Monitor {
+        private double best = Double.POSITIVE_INFINITY;
+        private int epochsSinceBest = 0;
+
+        boolean shouldStop(double loss) {
+            if (loss <= targetLoss)
+                return true;
+            if (loss < best - minDelta) {
+                best = loss;
+                epochsSinceBest = 0;
+                return false;
+            }
+            return ++epochsSinceBest >= patience;
+        }
+    }
+
+    Monitor monitor() {
+        return new Monitor();
+    }
+}
@@ -0,0 +1,49 @@
+package placement;
+
+// Counts predicted for the consecutive years after the last known year. Each
+// step is fed the previous step's prediction, so every year in the range has
+// its own inputs instead of reusing the last observed count. For an ensemble the
+// count is the member mean and [low, high] the band around it; a single network
+// has low == count == high.
+final class Forecast {
+    final int firstYear;
+    private final int[] counts;
+    private final int[] low;
+    private final int[] high;
+
+    Forecast(int firstYear, int[] counts) {
+        this(firstYear, counts, counts, counts);
+    }
+
+    Forecast(int firstYear, int[] counts, int[] low, int[] high) {
+        this.firstYear = firstYear;
+        this.counts = counts;
+        this.low = low;
+        this.high = high;
+    }
+
+    int lastYear() {
+        return firstYear + counts.length - 1;
+    }
+
+    boolean covers(int year) {
+        return year >= firstYear && year <= lastYear();
+    }
+
+    int count(int year) {
+        return counts[year - firstYear];
+    }
+
+    int low(int year) {
+        return low[year - firstYear];
+    }
+
+    int high(int year) {
+        return high[year - firstYear];
+    }
+
+    // Counts for firstYear..year
+    int[] countsThrough(int year) {
+        return java.util.Arrays.copyOf(counts, year - firstYear + 1);
+    }
+}
@@ -0,0 +1,120 @@
+package placement;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+// Coalesces concurrent forecast requests into micro-batches. Callers enqueue a
+// request and wait on its future; one worker takes everything queued, answers
+// requests for the same series and model with a single rollout to the furthest
+// year asked for, and runs the distinct series of each model through the
+// CompactNetwork members together with ForecastEngine.forecastBatch. The worker
+// never waits for a batch to fill: requests that arrive while one batch runs
+// make up the next, so a quiet service answers at once and a busy one batches.
+final class ForecastBatcher implements AutoCloseable {
+    private static final class Request {
+        final TrainedModel model;
+        final YearHistogram histogram;
+        final int toYear;
+        final CompletableFuture<Forecast> result = new CompletableFuture<>();
+
+        Request(TrainedModel model, YearHistogram histogram, int toYear) {
+            this.model = model;
+            this.histogram = histogram;
+            this.toYear = toYear;
+        }
+    }
+
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private final CompactNetwork.Precision precision;
+    private final int maxBatch;
+    private final Thread worker;
+    private volatile boolean closed;
+    // Compact copies of each model, read and written by the worker only; a model
+    // nobody references any more drops out
+    private final Map<TrainedModel, CompactNetwork[]> compact = new WeakHashMap<>();
+
+    ForecastBatcher(CompactNetwork.Precision precision, int maxBatch) {
+        this.precision = precision;
+        this.maxBatch = maxBatch;
+        worker = new Thread(this::run, "forecast-batcher");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    // The histogram must hold at least one year and must not change afterwards
+    CompletableFuture<Forecast> submit(TrainedModel model, YearHistogram histogram, int toYear) {
+        Request request = new Request(model, histogram, toYear);
+        if (closed) {
+            request.result.completeExceptionally(new RejectedExecutionException("Batcher is closed"));
+        } else {
+            queue.add(request);
+        }
+        return request.result;
+    }
+
+    private void run() {
+        List<Request> batch = new ArrayList<>();
+        while (!closed) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            queue.drainTo(batch, maxBatch - 1);
+            try {
+                process(batch);
+            } catch (RuntimeException e) {
+                for (Request request : batch) {
+                    request.result.completeExceptionally(e);
+                }
+            }
+            batch.clear();
+        }
+        Request left;
+        while ((left = queue.poll()) != null) {
+            left.result.completeExceptionally(new RejectedExecutionException("Batcher is closed"));
+        }
+    }
+
+    private void process(List<Request> batch) {
+        Metrics.FORECAST_BATCHES.add(1);
+        Metrics.FORECAST_BATCHED.add(batch.size());
+
+        // Model -> series fingerprint -> requests for that series
+        Map<TrainedModel, Map<Long, List<Request>>> groups = new IdentityHashMap<>();
+        for (Request request : batch) {
+            groups.computeIfAbsent(request.model, m -> new LinkedHashMap<>())
+                    .computeIfAbsent(request.histogram.fingerprint(), f -> new ArrayList<>()).add(request);
+        }
+
+        for (Map.Entry<TrainedModel, Map<Long, List<Request>>> group : groups.entrySet()) {
+            TrainedModel model = group.getKey();
+            List<List<Request>> series = new ArrayList<>(group.getValue().values());
+            int rows = series.size();
+            int[][] yearValues = new int[rows][];
+            int[][] placedStudents = new int[rows][];
+            int[] toYears = new int[rows];
+            for (int r = 0; r < rows; r++) {
+                YearHistogram histogram = series.get(r).get(0).histogram;
+                yearValues[r] = histogram.years();
+                placedStudents[r] = histogram.counts();
+                for (Request request : series.get(r)) {
+                    toYears[r] = Math.max(toYears[r], request.toYear);
+                }
+            }
+            CompactNetwork[] members = compact.computeIfAbsent(model, m -> CompactNetwork.of(m, precision));
+            Forecast[] forecasts = ForecastEngine.forecastBatch(model, members, yearValues, placedStudents, toYears);
+            for (int r = 0; r < rows; r++) {
+                for (Request request : series.get(r)) {
+                    request.result.complete(forecasts[r]);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        worker.interrupt();
+    }
+}
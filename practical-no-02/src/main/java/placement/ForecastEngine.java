@@ -0,0 +1,351 @@
+package placement;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// The ingest -> train -> predict pipeline with no Swing or AWT dependency, shared
+// by GraphPanel and the headless batch CLI.
+final class ForecastEngine {
+    private ForecastEngine() {
+    }
+
+    // Reads <csv>.ptsnap when it is current, otherwise parses the CSV and writes one
+    static YearHistogram load(File csv) throws IOException {
+        IncrementalCsvLoader loader = new IncrementalCsvLoader(csv);
+        loader.load();
+        return loader.histogram();
+    }
+
+    // Adam converges on a yearly series in a fraction of the 1000 SGD epochs the
+    // model used to run, and early stopping ends the run once the loss flattens
+    static TrainingOptions defaultOptions() {
+        return new TrainingOptions()
+                .epochs(1000)
+                .learningRate(0.05)
+                .batchSize(16)
+                .threads(1)
+                .optimizer(Optimizer::adam)
+                .earlyStopping(new EarlyStopping(20, 1e-5));
+    }
+
+    // Seed of the first network, so retraining on the same data gives the same model
+    static final long DEFAULT_SEED = 42;
+    // Networks trained by the "Train Model" button
+    static final int DEFAULT_ENSEMBLE_SIZE = 8;
+    // Furthest a forecast reaches past the last known year. Every year is one
+    // step of every member, so this bounds the work a single request can ask for.
+    static final int MAX_HORIZON = 50;
+    // Half width of the band in member standard deviations, about 95% of members
+    private static final double BAND_WIDTH = 1.96;
+
+    // Progress of one ensemble member; called concurrently from every member's thread
+    interface MemberListener {
+        boolean epochCompleted(int member, int epoch, double loss);
+    }
+
+    // Trains a fresh single network model on a series of at least 3 years. Returns
+    // null if the listener stopped training; a null listener trains silently.
+    static TrainedModel train(int[] yearValues, int[] placedStudents, TrainingOptions options,
+            NeuralNetwork.EpochListener listener) {
+        return trainEnsemble(yearValues, placedStudents, options, 1, DEFAULT_SEED,
+                listener != null ? (member, epoch, loss) -> listener.epochCompleted(epoch, loss) : null);
+    }
+
+    // Trains members networks, each on its own seed drawn from seed, in parallel on
+    // NeuralNetwork.TRAINING_POOL, so concurrent callers share its workers. Each
+    // sample maps (year, count, trend) to the next year's count. The same seed and size always give the same
+    // members. Returns null if the listener stopped any member.
+    static TrainedModel trainEnsemble(int[] yearValues, int[] placedStudents, TrainingOptions options, int members,
+            long seed, MemberListener listener) {
+        if (placedStudents.length < 3)
+            throw new IllegalArgumentException("Need at least 3 years of data to train");
+        if (members < 1)
+            throw new IllegalArgumentException("An ensemble needs at least one member");
+
+        List<double[]> inputs = new ArrayList<>();
+        List<double[]> outputs = new ArrayList<>();
+
+        double maxCount = Arrays.stream(placedStudents).max().orElse(1);
+
+        for (int i = 0; i < placedStudents.length - 1; i++) {
+            double[] input = new double[3];
+            // Year normalized
+            input[0] = (double) (yearValues[i] - yearValues[0]) / 10.0;
+            // Current count normalized
+            input[1] = placedStudents[i] / maxCount;
+            // Trend (if available)
+            input[2] = i > 0 ? (placedStudents[i] - placedStudents[i - 1]) / maxCount : 0;
+
+            double[] output = new double[1];
+            output[0] = placedStudents[i + 1] / maxCount;
+
+            inputs.add(input);
+            outputs.add(output);
+        }
+
+        SplittableRandom seeds = new SplittableRandom(seed);
+        long[] memberSeeds = new long[members];
+        for (int m = 0; m < members; m++) {
+            memberSeeds[m] = seeds.nextLong();
+        }
+
+        // The samples are only read, so every member shares them
+        NeuralNetwork[] networks = new NeuralNetwork[members];
+        AtomicBoolean stopped = new AtomicBoolean();
+        if (members == 1) {
+            networks[0] = trainMember(inputs, outputs, options, 0, memberSeeds[0], listener, stopped);
+        } else {
+            List<ForkJoinTask<?>> tasks = new ArrayList<>();
+            for (int m = 0; m < members; m++) {
+                final int member = m;
+                tasks.add(NeuralNetwork.TRAINING_POOL.submit(() -> {
+                    networks[member] = trainMember(inputs, outputs, options, member, memberSeeds[member], listener,
+                            stopped);
+                }));
+            }
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
+            }
+        }
+        if (stopped.get())
+            return null;
+        return new TrainedModel(networks, maxCount, yearValues[0]);
+    }
+
+    private static NeuralNetwork trainMember(List<double[]> inputs, List<double[]> outputs, TrainingOptions options,
+            int member, long seed, MemberListener listener, AtomicBoolean stopped) {
+        NeuralNetwork network = new NeuralNetwork(3, options.hiddenSize1, options.hiddenSize2, 1, seed);
+        network.train(inputs, outputs, options, (epoch, loss) -> {
+            if (stopped.get() || (listener != null && !listener.epochCompleted(member, epoch, loss))) {
+                stopped.set(true);
+                return false;
+            }
+            return true;
+        });
+        return network;
+    }
+
+    // Rolls every member forward one year at a time from the end of the series up
+    // to toYear. Training pairs a year's (year, count, trend) with the next year's
+    // count, so each step's input is the previous year and that member's own
+    // predicted count. The forecast is the member mean, with a band of BAND_WIDTH
+    // standard deviations of the members around it. All steps of a member share
+    // one input, output and scratch buffer.
+    static Forecast forecast(TrainedModel model, int[] yearValues, int[] placedStudents, int toYear) {
+        Member[] members = new Member[model.members.length];
+        for (int m = 0; m < members.length; m++) {
+            NeuralNetwork network = model.members[m];
+            NeuralNetwork.Scratch scratch = network.newScratch();
+            double[] output = new double[network.outputSize()];
+            members[m] = input -> {
+                network.predict(input, output, scratch);
+                return output[0];
+            };
+        }
+        return rollout(model, members, yearValues, placedStudents, toYear);
+    }
+
+    // The same forecast from float32 or int8 copies of the members, see CompactNetwork
+    static Forecast forecast(TrainedModel model, CompactNetwork.Precision precision, int[] yearValues,
+            int[] placedStudents, int toYear) {
+        CompactNetwork[] networks = CompactNetwork.of(model, precision);
+        Member[] members = new Member[networks.length];
+        for (int m = 0; m < members.length; m++) {
+            CompactNetwork network = networks[m];
+            float[] in = new float[network.inputSize()];
+            float[] out = new float[network.outputSize()];
+            members[m] = input -> {
+                for (int i = 0; i < in.length; i++) {
+                    in[i] = (float) input[i];
+                }
+                network.predict(in, 1, out);
+                return out[0];
+            };
+        }
+        return rollout(model, members, yearValues, placedStudents, toYear);
+    }
+
+    // One ensemble member: the scaled next year count for a (year, count, trend) input
+    private interface Member {
+        double predict(double[] input);
+    }
+
+    private static Forecast rollout(TrainedModel model, Member[] members, int[] yearValues, int[] placedStudents,
+            int toYear) {
+        int n = placedStudents.length;
+        int lastYear = yearValues[n - 1];
+        int steps = horizon(lastYear, toYear);
+        long start = Metrics.start();
+        double[] sum = new double[steps];
+        double[] sumOfSquares = new double[steps];
+        double maxCount = model.maxCount;
+
+        for (Member member : members) {
+            double[] input = new double[3];
+
+            int previousYear = lastYear;
+            double previous = placedStudents[n - 1];
+            double beforePrevious = n > 1 ? placedStudents[n - 2] : previous;
+            for (int step = 0; step < steps; step++) {
+                input[0] = (double) (previousYear - model.baseYear) / 10.0;
+                input[1] = previous / maxCount;
+                input[2] = (previous - beforePrevious) / maxCount;
+
+                int count = Math.max(0, (int) (member.predict(input) * maxCount));
+                sum[step] += count;
+                sumOfSquares[step] += (double) count * count;
+
+                beforePrevious = previous;
+                previous = count;
+                previousYear++;
+            }
+        }
+
+        Forecast forecast = summarize(lastYear, sum, sumOfSquares, members.length);
+        Metrics.FORECAST.stop(start);
+        return forecast;
+    }
+
+    // Forecasts many series with one model together. At every step each member
+    // predicts the next count of all series still rolling forward in one batched
+    // call, which is how a service answers many slices or datasets at once.
+    // Series need at least one year; result r runs through toYears[r].
+    static Forecast[] forecastBatch(TrainedModel model, CompactNetwork[] members, int[][] yearValues,
+            int[][] placedStudents, int[] toYears) {
+        int rows = yearValues.length;
+        long start = Metrics.start();
+        int[] steps = new int[rows];
+        int maxSteps = 0;
+        double[][] sum = new double[rows][];
+        double[][] sumOfSquares = new double[rows][];
+        for (int r = 0; r < rows; r++) {
+            steps[r] = horizon(yearValues[r][yearValues[r].length - 1], toYears[r]);
+            maxSteps = Math.max(maxSteps, steps[r]);
+            sum[r] = new double[steps[r]];
+            sumOfSquares[r] = new double[steps[r]];
+        }
+
+        double maxCount = model.maxCount;
+        float[] inputs = new float[rows * 3];
+        float[] outputs = new float[rows];
+        int[] active = new int[rows];
+        int[] previousYear = new int[rows];
+        double[] previous = new double[rows];
+        double[] beforePrevious = new double[rows];
+        for (CompactNetwork member : members) {
+            for (int r = 0; r < rows; r++) {
+                int n = placedStudents[r].length;
+                previousYear[r] = yearValues[r][n - 1];
+                previous[r] = placedStudents[r][n - 1];
+                beforePrevious[r] = n > 1 ? placedStudents[r][n - 2] : previous[r];
+            }
+            for (int step = 0; step < maxSteps; step++) {
+                int batch = 0;
+                for (int r = 0; r < rows; r++) {
+                    if (step >= steps[r])
+                        continue;
+                    active[batch] = r;
+                    inputs[batch * 3] = (float) ((double) (previousYear[r] - model.baseYear) / 10.0);
+                    inputs[batch * 3 + 1] = (float) (previous[r] / maxCount);
+                    inputs[batch * 3 + 2] = (float) ((previous[r] - beforePrevious[r]) / maxCount);
+                    batch++;
+                }
+                member.predict(inputs, batch, outputs);
+                for (int k = 0; k < batch; k++) {
+                    int r = active[k];
+                    int count = Math.max(0, (int) (outputs[k] * maxCount));
+                    sum[r][step] += count;
+                    sumOfSquares[r][step] += (double) count * count;
+                    beforePrevious[r] = previous[r];
+                    previous[r] = count;
+                    previousYear[r]++;
+                }
+            }
+        }
+
+        Forecast[] forecasts = new Forecast[rows];
+        for (int r = 0; r < rows; r++) {
+            forecasts[r] = summarize(yearValues[r][yearValues[r].length - 1], sum[r], sumOfSquares[r],
+                    members.length);
+        }
+        Metrics.FORECAST.stop(start);
+        return forecasts;
+    }
+
+    // Member mean per step, with the band of BAND_WIDTH standard deviations
+    private static Forecast summarize(int lastYear, double[] sum, double[] sumOfSquares, int size) {
+        int steps = sum.length;
+        int[] counts = new int[steps];
+        int[] low = new int[steps];
+        int[] high = new int[steps];
+        for (int step = 0; step < steps; step++) {
+            double mean = sum[step] / size;
+            double variance = size > 1
+                    ? Math.max(0, (sumOfSquares[step] - size * mean * mean) / (size - 1))
+                    : 0;
+            double band = BAND_WIDTH * Math.sqrt(variance);
+            counts[step] = (int) Math.round(mean);
+            low[step] = Math.max(0, (int) Math.round(mean - band));
+            high[step] = (int) Math.round(mean + band);
+        }
+        return new Forecast(lastYear + 1, counts, low, high);
+    }
+
+    // Same as forecast() but served from the cache when every year is already
+    // there; on a miss the whole range is computed and cached
+    static Forecast forecast(TrainedModel model, long fingerprint, int[] yearValues, int[] placedStudents,
+            int toYear, PredictionCache cache) {
+        int firstYear = yearValues[yearValues.length - 1] + 1;
+        int years = horizon(firstYear - 1, toYear);
+        int[] counts = new int[years];
+        int[] low = new int[years];
+        int[] high = new int[years];
+        boolean complete = true;
+        for (int i = 0; i < years && complete; i++) {
+            PredictionCache.Entry cached = cache.get(fingerprint, model.version, firstYear + i);
+            complete = cached != null;
+            if (complete) {
+                counts[i] = cached.count;
+                low[i] = cached.low;
+                high[i] = cached.high;
+            }
+        }
+        if (complete)
+            return new Forecast(firstYear, counts, low, high);
+
+        Forecast computed = forecast(model, yearValues, placedStudents, toYear);
+        for (int year = firstYear; year <= toYear; year++) {
+            cache.put(fingerprint, model.version, year, computed.count(year), computed.low(year), computed.high(year));
+        }
+        return computed;
+    }
+
+    // Years from lastYear to toYear, at most MAX_HORIZON
+    static int horizon(int lastYear, int toYear) {
+        long years = (long) toYear - lastYear;
+        if (years > MAX_HORIZON)
+            throw new IllegalArgumentException(
+                    "Can forecast at most " + MAX_HORIZON + " years past " + lastYear + ", not " + toYear);
+        return (int) Math.max(0, years);
+    }
+
+    // Predicted count for one year after the last year of the series
+    static int predict(TrainedModel model, int[] yearValues, int[] placedStudents, int targetYear) {
+        return forecast(model, yearValues, placedStudents, targetYear).count(targetYear);
+    }
+
+    // Change against the last known count, clamped to +/-100%; null when the last count is 0
+    static Double changePercent(int predictedCount, int lastYearCount) {
+        if (lastYearCount == 0)
+            return null;
+        double rawPercentage = ((double) (predictedCount - lastYearCount) / lastYearCount) * 100;
+        return Math.max(-100, Math.min(100, rawPercentage));
+    }
+
+    // Trained models are kept next to their CSV as <name>.csv.model
+    static File modelFileFor(File csv) {
+        return new File(csv.getPath() + ".model");
+    }
+}
@@ -0,0 +1,336 @@
+package placement;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import javax.swing.*;
+
+class GraphPanel extends JPanel {
+    private static final Font HEADING_FONT = new Font("SansSerif", Font.BOLD, 16);
+    private static final Font NORMAL_FONT = new Font("SansSerif", Font.PLAIN, 12);
+    private static final Font BOLD_FONT = new Font("SansSerif", Font.BOLD, 12);
+    private static final Font TAG_FONT = new Font("SansSerif", Font.BOLD, 10);
+    private static final Color RANGE_COLOR = new Color(150, 150, 255);
+    private static final Color LEAD_COLOR = new Color(150, 220, 150);
+    private static final Color BAND_COLOR = new Color(60, 60, 60, 70);
+    // Width kept free per predicted bar when the series is drawn in buckets
+    private static final int HIGHLIGHT_COLUMN = 40;
+
+    // Paints whichever dataset of the workspace is active; every paint reads its
+    // ChartState once and draws only from that
+    final Workspace workspace;
+
+    // Axes, grid and historical bars rendered once and reused until the series,
+    // size, scale or bar layout changes; highlights are painted on top
+    private BufferedImage chartCache;
+    private long cacheVersion = -1;
+    private int cacheWidth;
+    private int cacheHeight;
+    private int cacheMaxValue;
+    private int cacheSlots;
+    private double cacheScaleX;
+    private double cacheScaleY;
+
+    GraphPanel(Workspace workspace) {
+        this.workspace = workspace;
+        workspace.addListener(this::repaint);
+    }
+
+    File[] chooseCSVFiles() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setMultiSelectionEnabled(true);
+        int result = fileChooser.showOpenDialog(this);
+        return result == JFileChooser.APPROVE_OPTION ? fileChooser.getSelectedFiles() : new File[0];
+    }
+
+    boolean hasData() {
+        return workspace.activeState().hasData();
+    }
+
+    // Forces the next paint to redraw the chart layer
+    void discardChartCache() {
+        cacheVersion = -1;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        long start = Metrics.start();
+        Metrics.PaintEvent event = Metrics.beginPaint();
+        ChartState state = workspace.activeState();
+        drawChart((Graphics2D) g, state);
+        Metrics.PAINT.stop(start);
+        if (event != null && event.shouldCommit()) {
+            event.points = state.series.placedStudents.length;
+            event.commit();
+        }
+    }
+
+    private void drawChart(Graphics2D g2, ChartState state) {
+        int width = getWidth();
+        int height = getHeight();
+        int padding = 50;
+        ChartState.Series series = state.series;
+        int[] placedStudents = series.placedStudents;
+        ChartState.Highlight highlight = state.highlight;
+
+        if (placedStudents.length == 0) {
+            g2.setFont(HEADING_FONT);
+            g2.setColor(Color.BLACK);
+            String heading = "Placement trend prediction with Deep Learning for engineering college";
+            g2.drawString(heading, 20, 40);
+
+            String[] lines = {
+                    "This application uses deep learning to analyze placement data and predict future trends.",
+                    "",
+                    "Step To Use This Application :",
+                    "1. Click 'Upload CSV' button.",
+                    "2. Select your CSV file with 'Name,Year' data.",
+                    "3. Click 'Train Model' to train the neural network.",
+                    "4. Enter a year and click 'DL Prediction' for deep learning based prediction.",
+                    "5. The graph shows prediction percentage for upcoming years.",
+                    "",
+                    "Created By",
+                    "Rohan Ingle"
+            };
+
+            int x = 20;
+            int y = 60;
+            int lineHeight = g2.getFontMetrics().getHeight();
+
+            for (String line : lines) {
+                if (line.equals("Step To Use This Application :") || line.equals("Created By")) {
+                    g2.setFont(BOLD_FONT);
+                } else {
+                    g2.setFont(NORMAL_FONT);
+                }
+                g2.drawString(line, x, y);
+                y += lineHeight;
+            }
+            return;
+        }
+
+        int overlay = highlight != null ? highlight.lead.length + 1 : 0;
+        int maxValue = series.maxActual;
+
+        if (highlight != null && highlight.count > maxValue) {
+            maxValue = highlight.count;
+        }
+        if (highlight != null) {
+            for (int count : highlight.lead) {
+                maxValue = Math.max(maxValue, count);
+            }
+        }
+        if (highlight != null && highlight.range != null) {
+            for (int k = 0; k < overlay; k++) {
+                maxValue = Math.max(maxValue, highlight.range.high(highlight.range.firstYear + k));
+            }
+        }
+        maxValue += 20;
+
+        int slots = placedStudents.length + overlay;
+        int barWidth = (width - 2 * padding) / slots - 10;
+
+        // With more points than room for one bar each, the series is drawn as one
+        // bucket per pixel column and the predicted bars share a fixed area
+        boolean bucketed = barWidth < 1;
+        int seriesWidth = width - 2 * padding;
+        int overlayStart = padding + placedStudents.length * (barWidth + 10) + 5;
+        int overlayColumn = barWidth + 10;
+        int overlayWidth = barWidth;
+        if (bucketed && overlay > 0) {
+            int reserve = Math.min(overlay * HIGHLIGHT_COLUMN, seriesWidth / 3);
+            seriesWidth -= reserve;
+            overlayColumn = Math.max(1, reserve / overlay);
+            int inset = overlayColumn > 12 ? 5 : 0;
+            overlayStart = padding + seriesWidth + inset;
+            overlayWidth = Math.max(1, overlayColumn - 2 * inset);
+        }
+
+        AffineTransform transform = g2.getTransform();
+        double scaleX = transform.getScaleX();
+        double scaleY = transform.getScaleY();
+        if (chartCache == null || cacheVersion != series.version || cacheWidth != width || cacheHeight != height
+                || cacheMaxValue != maxValue || cacheSlots != slots || cacheScaleX != scaleX
+                || cacheScaleY != scaleY) {
+            renderChart(series, width, height, padding, maxValue, barWidth, bucketed, seriesWidth, scaleX, scaleY);
+            cacheVersion = series.version;
+            cacheWidth = width;
+            cacheHeight = height;
+            cacheMaxValue = maxValue;
+            cacheSlots = slots;
+            cacheScaleX = scaleX;
+            cacheScaleY = scaleY;
+        }
+        // The cache holds device pixels, so draw it back at the logical size
+        g2.drawImage(chartCache, 0, 0, width, height, null);
+
+        if (highlight != null) {
+            int[] forecastLead = highlight.lead;
+            Forecast forecastRange = highlight.range;
+            FontMetrics metrics = g2.getFontMetrics();
+            int nextLabelX = Integer.MIN_VALUE;
+            for (int k = 0; k < forecastLead.length; k++) {
+                int x = overlayStart + k * overlayColumn;
+                int barHeight = scaled(forecastLead[k], height - 2 * padding, maxValue);
+                g2.setColor(LEAD_COLOR);
+                g2.fillRect(x, height - padding - barHeight, overlayWidth, barHeight);
+
+                String label = String.valueOf(series.lastYear() + 1 + k);
+                if (x >= nextLabelX) {
+                    g2.setColor(Color.BLACK);
+                    g2.drawString(label, x, height - padding + 15);
+                    nextLabelX = x + metrics.stringWidth(label) + 4;
+                }
+            }
+
+            int x = overlayStart + forecastLead.length * overlayColumn;
+            int barHeight = scaled(highlight.count, height - 2 * padding, maxValue);
+            int y = height - padding - barHeight;
+
+            g2.setColor(highlight.isDLPrediction ? Color.GREEN : Color.ORANGE);
+            g2.fillRect(x, y, overlayWidth, barHeight);
+
+            // Labels go above the band when it reaches higher than the bar
+            int labelY = y - 5;
+            if (forecastRange != null) {
+                for (int k = 0; k < overlay; k++) {
+                    int year = forecastRange.firstYear + k;
+                    drawBand(g2, overlayStart + k * overlayColumn, overlayWidth, forecastRange.low(year),
+                            forecastRange.high(year), height, padding, maxValue);
+                }
+                int high = forecastRange.high(forecastRange.firstYear + overlay - 1);
+                labelY = Math.min(labelY, height - padding - scaled(high, height - 2 * padding, maxValue) - 5);
+            }
+
+            g2.setColor(Color.BLACK);
+            g2.drawString(highlight.year, x, height - padding + 15);
+
+            if (highlight.percentage != null) {
+                String percText = String.format("%+.1f%%", highlight.percentage);
+                g2.setColor(Color.RED);
+                g2.drawString(percText, x, labelY);
+
+                if (highlight.isDLPrediction) {
+                    g2.setColor(Color.DARK_GRAY);
+                    g2.setFont(TAG_FONT);
+                    g2.drawString("DL", x + overlayWidth - 20, labelY);
+                }
+            }
+        }
+    }
+
+    // Pixels for a count on an axis of plotHeight pixels up to maxValue; the product
+    // is a long because counts of tens of millions times the height overflow an int
+    private static int scaled(int count, int plotHeight, int maxValue) {
+        return (int) ((long) count * plotHeight / maxValue);
+    }
+
+    // Shaded [low, high] range over a predicted bar, with whiskers at both ends
+    private void drawBand(Graphics2D g2, int x, int barWidth, int low, int high, int height, int padding,
+            int maxValue) {
+        if (high <= low)
+            return;
+        int top = height - padding - scaled(high, height - 2 * padding, maxValue);
+        int bottom = height - padding - scaled(low, height - 2 * padding, maxValue);
+        g2.setColor(BAND_COLOR);
+        g2.fillRect(x, top, barWidth, bottom - top);
+        g2.setColor(Color.DARK_GRAY);
+        int center = x + barWidth / 2;
+        int whisker = Math.max(1, barWidth / 4);
+        g2.drawLine(center, top, center, bottom);
+        g2.drawLine(center - whisker, top, center + whisker, top);
+        g2.drawLine(center - whisker, bottom, center + whisker, bottom);
+    }
+
+    private void renderChart(ChartState.Series series, int width, int height, int padding, int maxValue,
+            int barWidth, boolean bucketed, int seriesWidth, double scaleX, double scaleY) {
+        int pixelWidth = Math.max(1, (int) Math.ceil(width * scaleX));
+        int pixelHeight = Math.max(1, (int) Math.ceil(height * scaleY));
+        if (chartCache == null || chartCache.getWidth() != pixelWidth || chartCache.getHeight() != pixelHeight) {
+            chartCache = new BufferedImage(pixelWidth, pixelHeight, BufferedImage.TYPE_INT_ARGB);
+        }
+
+        Graphics2D g2 = chartCache.createGraphics();
+        try {
+            g2.setComposite(AlphaComposite.Clear);
+            g2.fillRect(0, 0, pixelWidth, pixelHeight);
+            g2.setComposite(AlphaComposite.SrcOver);
+            g2.scale(scaleX, scaleY);
+            g2.setFont(getFont());
+
+            g2.setColor(Color.BLACK);
+            g2.drawLine(padding, padding, padding, height - padding);
+            g2.drawLine(padding, height - padding, width - padding, height - padding);
+
+            int yDivisions = 5;
+            for (int i = 0; i <= yDivisions; i++) {
+                int y = height - padding - i * (height - 2 * padding) / yDivisions;
+                g2.setColor(Color.LIGHT_GRAY);
+                g2.drawLine(padding, y, width - padding, y);
+                g2.setColor(Color.BLACK);
+                g2.drawString(String.valueOf((long) maxValue * i / yDivisions), 10, y + 5);
+            }
+
+            if (bucketed) {
+                renderBuckets(g2, series, height, padding, maxValue, seriesWidth);
+                return;
+            }
+
+            int[] placedStudents = series.placedStudents;
+            String[] years = series.years;
+            FontMetrics metrics = g2.getFontMetrics();
+            int nextLabelX = Integer.MIN_VALUE;
+            for (int i = 0; i < placedStudents.length; i++) {
+                int x = padding + i * (barWidth + 10) + 5;
+                int barHeight = scaled(placedStudents[i], height - 2 * padding, maxValue);
+                int y = height - padding - barHeight;
+
+                g2.setColor(Color.BLUE);
+                g2.fillRect(x, y, barWidth, barHeight);
+
+                // Labels that would overlap the previous one are skipped
+                if (x >= nextLabelX) {
+                    g2.setColor(Color.BLACK);
+                    g2.drawString(years[i], x, height - padding + 15);
+                    nextLabelX = x + metrics.stringWidth(years[i]) + 4;
+                }
+            }
+        } finally {
+            g2.dispose();
+        }
+    }
+
+    // One column per bucket of the pyramid level that fits the width: the light
+    // bar reaches the bucket maximum and the dark bar its minimum
+    private void renderBuckets(Graphics2D g2, ChartState.Series series, int height, int padding, int maxValue,
+            int seriesWidth) {
+        SeriesPyramid pyramid = series.pyramid;
+        int level = pyramid.levelFor(seriesWidth);
+        int buckets = pyramid.size(level);
+        int plotHeight = height - 2 * padding;
+        FontMetrics metrics = g2.getFontMetrics();
+        int nextLabelX = Integer.MIN_VALUE;
+
+        for (int b = 0; b < buckets; b++) {
+            int x = padding + (int) ((long) b * seriesWidth / buckets);
+            int nextX = padding + (int) ((long) (b + 1) * seriesWidth / buckets);
+            int columnWidth = Math.max(1, nextX - x);
+
+            int maxHeight = scaled(pyramid.max(level, b), plotHeight, maxValue);
+            int minHeight = scaled(pyramid.min(level, b), plotHeight, maxValue);
+            g2.setColor(RANGE_COLOR);
+            g2.fillRect(x, height - padding - maxHeight, columnWidth, maxHeight - minHeight);
+            g2.setColor(Color.BLUE);
+            g2.fillRect(x, height - padding - minHeight, columnWidth, minHeight);
+
+            String label = series.years[pyramid.firstIndex(level, b)];
+            if (x >= nextLabelX) {
+                g2.setColor(Color.BLACK);
+                g2.drawString(label, x, height - padding + 15);
+                nextLabelX = x + metrics.stringWidth(label) + 4;
+            }
+        }
+    }
+}
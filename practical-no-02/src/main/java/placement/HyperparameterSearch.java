@@ -0,0 +1,266 @@
+package placement;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Picks hidden layer sizes, learning rate and epoch budget for a year series.
+// A seeded random sample of the grid is scored by walk-forward validation: for
+// each of the last few years a network is trained on the years before it and
+// asked for that year, and the score is the mean absolute error in students.
+// Successive halving keeps the best third of the candidates after every rung and
+// triples their epoch budget, so poor settings never get a full length run.
+// Candidates of a rung run in parallel on a bounded pool.
+final class HyperparameterSearch {
+    static final int[] HIDDEN_SIZES_1 = { 4, 8, 10, 16 };
+    static final int[] HIDDEN_SIZES_2 = { 3, 5, 8 };
+    static final double[] LEARNING_RATES = { 0.01, 0.03, 0.05, 0.1 };
+    static final int[] EPOCH_BUDGETS = { 250, 500, 1000, 2000 };
+
+    // Epochs every candidate gets in the first rung
+    private static final int FIRST_RUNG_EPOCHS = 50;
+    // Fraction of candidates dropped after each rung is 1 - 1/REDUCTION
+    private static final int REDUCTION = 3;
+
+    static final class Candidate {
+        final int hiddenSize1;
+        final int hiddenSize2;
+        final double learningRate;
+        final int epochs;
+
+        Candidate(int hiddenSize1, int hiddenSize2, double learningRate, int epochs) {
+            this.hiddenSize1 = hiddenSize1;
+            this.hiddenSize2 = hiddenSize2;
+            this.learningRate = learningRate;
+            this.epochs = epochs;
+        }
+
+        TrainingOptions options(int epochBudget) {
+            return ForecastEngine.defaultOptions()
+                    .hiddenSizes(hiddenSize1, hiddenSize2)
+                    .learningRate(learningRate)
+                    .epochs(Math.min(epochBudget, epochs));
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "3-%d-%d-1, lr %.2f, %d epochs", hiddenSize1, hiddenSize2,
+                    learningRate, epochs);
+        }
+    }
+
+    // Walk-forward error of a candidate at the last rung it reached
+    static final class Score {
+        final Candidate candidate;
+        final int rung;
+        final int epochBudget;
+        final double error;
+
+        Score(Candidate candidate, int rung, int epochBudget, double error) {
+            this.candidate = candidate;
+            this.rung = rung;
+            this.epochBudget = epochBudget;
+            this.error = error;
+        }
+    }
+
+    static final class Result {
+        // Best first: candidates that survived more rungs, then lower error
+        final List<Score> ranking;
+        // The best candidate trained on the whole series
+        final TrainedModel model;
+        final long elapsedNanos;
+
+        Result(List<Score> ranking, TrainedModel model, long elapsedNanos) {
+            this.ranking = ranking;
+            this.model = model;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        Candidate best() {
+            return ranking.get(0).candidate;
+        }
+
+        String report() {
+            StringBuilder report = new StringBuilder();
+            report.append(String.format(Locale.ROOT, "%d candidates in %.1f s, walk-forward MAE in students%n",
+                    ranking.size(), elapsedNanos / 1e9));
+            for (int i = 0; i < ranking.size(); i++) {
+                Score score = ranking.get(i);
+                report.append(String.format(Locale.ROOT, "%2d. %-30s rung %d (%4d epochs)  MAE %.2f%n", i + 1,
+                        score.candidate, score.rung, score.epochBudget, score.error));
+            }
+            return report.toString();
+        }
+    }
+
+    // Called after every candidate evaluation, from the pool threads. total assumes
+    // every rung runs, so a search that stops early finishes below it. Returning
+    // false cancels the search.
+    interface Progress {
+        boolean evaluated(int done, int total);
+    }
+
+    int candidates = 24;
+    // Years held out one at a time, counted from the end of the series
+    int folds = 4;
+    int threads = Runtime.getRuntime().availableProcessors();
+    long seed = ForecastEngine.DEFAULT_SEED;
+    int ensembleSize = ForecastEngine.DEFAULT_ENSEMBLE_SIZE;
+
+    HyperparameterSearch candidates(int candidates) {
+        if (candidates < 1)
+            throw new IllegalArgumentException("candidates must be at least 1");
+        this.candidates = candidates;
+        return this;
+    }
+
+    HyperparameterSearch folds(int folds) {
+        if (folds < 1)
+            throw new IllegalArgumentException("folds must be at least 1");
+        this.folds = folds;
+        return this;
+    }
+
+    HyperparameterSearch threads(int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be at least 1");
+        this.threads = threads;
+        return this;
+    }
+
+    HyperparameterSearch seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    HyperparameterSearch ensembleSize(int ensembleSize) {
+        if (ensembleSize < 1)
+            throw new IllegalArgumentException("ensembleSize must be at least 1");
+        this.ensembleSize = ensembleSize;
+        return this;
+    }
+
+    // Needs at least 4 years: every fold trains on 3 or more. Returns null if
+    // progress cancelled the search.
+    Result run(int[] yearValues, int[] placedStudents, Progress progress) throws InterruptedException {
+        int n = placedStudents.length;
+        if (n < 4)
+            throw new IllegalArgumentException("Need at least 4 years of data to tune");
+        long start = System.nanoTime();
+        int folds = Math.min(this.folds, n - 3);
+
+        List<Candidate> alive = sample();
+        int total = 0;
+        for (int size = alive.size(), budget = FIRST_RUNG_EPOCHS;; size = (size + REDUCTION - 1) / REDUCTION,
+                budget *= REDUCTION) {
+            total += size;
+            if (size == 1 || budget >= maxEpochs(alive))
+                break;
+        }
+
+        AtomicBoolean cancelled = new AtomicBoolean();
+        AtomicInteger done = new AtomicInteger();
+        Map<Candidate, Score> latest = new LinkedHashMap<>();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+        try {
+            int budget = FIRST_RUNG_EPOCHS;
+            for (int rung = 0;; rung++) {
+                final int rungIndex = rung;
+                final int rungBudget = budget;
+                final int evaluations = total;
+                List<Future<Score>> scores = new ArrayList<>();
+                for (Candidate candidate : alive) {
+                    scores.add(pool.submit(() -> {
+                        double error = walkForwardError(candidate, rungBudget, yearValues, placedStudents, folds,
+                                cancelled);
+                        if (progress != null && !progress.evaluated(done.incrementAndGet(), evaluations))
+                            cancelled.set(true);
+                        return new Score(candidate, rungIndex, Math.min(rungBudget, candidate.epochs), error);
+                    }));
+                }
+
+                List<Score> rungScores = new ArrayList<>();
+                for (Future<Score> score : scores) {
+                    try {
+                        rungScores.add(score.get());
+                    } catch (ExecutionException e) {
+                        throw new IllegalStateException(e.getCause());
+                    }
+                }
+                if (cancelled.get())
+                    return null;
+                rungScores.sort(Comparator.comparingDouble(score -> score.error));
+                for (Score score : rungScores) {
+                    latest.put(score.candidate, score);
+                }
+
+                if (alive.size() == 1 || budget >= maxEpochs(alive))
+                    break;
+                int keep = (alive.size() + REDUCTION - 1) / REDUCTION;
+                alive = new ArrayList<>();
+                for (int i = 0; i < keep; i++) {
+                    alive.add(rungScores.get(i).candidate);
+                }
+                budget *= REDUCTION;
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        List<Score> ranking = new ArrayList<>(latest.values());
+        ranking.sort(Comparator.comparingInt((Score score) -> -score.rung).thenComparingDouble(score -> score.error));
+
+        Candidate best = ranking.get(0).candidate;
+        TrainedModel model = ForecastEngine.trainEnsemble(yearValues, placedStudents, best.options(best.epochs),
+                ensembleSize, seed, (member, epoch, loss) -> !cancelled.get());
+        if (model == null)
+            return null;
+        return new Result(ranking, model, System.nanoTime() - start);
+    }
+
+    // Distinct grid points in a seeded random order, so a rerun tries the same ones
+    private List<Candidate> sample() {
+        List<Candidate> grid = new ArrayList<>();
+        for (int hiddenSize1 : HIDDEN_SIZES_1) {
+            for (int hiddenSize2 : HIDDEN_SIZES_2) {
+                for (double learningRate : LEARNING_RATES) {
+                    for (int epochs : EPOCH_BUDGETS) {
+                        grid.add(new Candidate(hiddenSize1, hiddenSize2, learningRate, epochs));
+                    }
+                }
+            }
+        }
+        Collections.shuffle(grid, new Random(seed));
+        return new ArrayList<>(grid.subList(0, Math.min(candidates, grid.size())));
+    }
+
+    private static int maxEpochs(List<Candidate> candidates) {
+        int max = 0;
+        for (Candidate candidate : candidates) {
+            max = Math.max(max, candidate.epochs);
+        }
+        return max;
+    }
+
+    // Mean absolute error of one step ahead forecasts for the last folds years,
+    // each from a network trained only on the years before it
+    private double walkForwardError(Candidate candidate, int epochBudget, int[] yearValues, int[] placedStudents,
+            int folds, AtomicBoolean cancelled) {
+        int n = placedStudents.length;
+        double error = 0;
+        for (int t = n - folds; t < n; t++) {
+            int[] trainYears = Arrays.copyOf(yearValues, t);
+            int[] trainCounts = Arrays.copyOf(placedStudents, t);
+            TrainedModel model = ForecastEngine.trainEnsemble(trainYears, trainCounts, candidate.options(epochBudget),
+                    1, seed, (member, epoch, loss) -> !cancelled.get());
+            if (model == null)
+                return Double.NaN;
+            int predicted = ForecastEngine.predict(model, trainYears, trainCounts, yearValues[t]);
+            error += Math.abs(predicted - placedStudents[t]);
+        }
+        return error / folds;
+    }
+}
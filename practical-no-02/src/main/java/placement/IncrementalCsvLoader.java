@@ -0,0 +1,286 @@
+package placement;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+
+// Loads a placement CSV that grows by appends. The histogram of complete lines and
+// the offset where the next line starts are remembered, so a refresh scans only
+// the bytes appended since the previous load. When the header names columns
+// besides the student and the year, rows go into a PlacementCube instead so the
+// counts can be sliced by those columns. The parsed state is kept in a CsvSnapshot
+// so a later load of the unchanged file skips parsing.
+class IncrementalCsvLoader {
+    // Refreshes after the first load save the snapshot at most this often, so tailing
+    // a busy file does not rewrite it on every append; stopWatching() saves the rest
+    private static final long SNAPSHOT_INTERVAL_NANOS = 30_000_000_000L;
+
+    private final File file;
+    // Dimension columns to keep; empty picks them with PlacementCube.forFile
+    private final String[] dimensions;
+    private PlacementCube cube;
+    private String header = "";
+
+    private YearHistogram committed = new YearHistogram();
+    private long offset;
+    private long scannedSize;
+    // A last line without its newline yet is shown, but rescanned on the next refresh
+    private int pendingYear = -1;
+    private String lastSummary = "";
+    private long snapshotSavedAt = System.nanoTime() - SNAPSHOT_INTERVAL_NANOS;
+    // Modification time of the scanned bytes not yet in the snapshot, -1 for none
+    private long unsavedModified = -1;
+
+    private Thread watcher;
+    private WatchService watchService;
+
+    IncrementalCsvLoader(File file, String... dimensions) {
+        this.file = file;
+        this.dimensions = dimensions;
+    }
+
+    synchronized void load() throws IOException {
+        reset();
+        if (!restoreSnapshot())
+            refresh();
+    }
+
+    // Returns true if the file changed since the last load
+    synchronized boolean refresh() throws IOException {
+        long modified = file.lastModified();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == scannedSize)
+                return false;
+            if (size < scannedSize) {
+                // Truncated or replaced, start over
+                reset();
+            }
+            long start = Metrics.start();
+            Metrics.CsvLoadEvent event = Metrics.beginCsvLoad();
+            long from = offset;
+            long rows;
+
+            if (offset == 0) {
+                header = readHeader(channel);
+                cube = PlacementCube.forFile(channel, header, dimensions);
+            }
+            if (cube != null) {
+                long before = cube.rows();
+                offset = cube.ingest(channel, offset, size, offset == 0,
+                        Runtime.getRuntime().availableProcessors());
+                rows = cube.rows() - before;
+                lastSummary = cube.lastSummary();
+            } else {
+                // The header line is only complete once a newline has been seen
+                CsvYearScanner scanner = CsvYearScanner.scanRange(channel, offset, size, offset == 0,
+                        Runtime.getRuntime().availableProcessors());
+                committed.merge(scanner.histogram());
+                offset = scanner.lineEnd();
+                pendingYear = scanner.pendingYear();
+                rows = scanner.rows();
+                lastSummary = scanner.summary();
+            }
+            scannedSize = size;
+            loaded(start, event, rows, size - from);
+            if (from == 0 || System.nanoTime() - snapshotSavedAt >= SNAPSHOT_INTERVAL_NANOS)
+                saveSnapshot(modified);
+            else
+                unsavedModified = modified;
+            return true;
+        }
+    }
+
+    private void loaded(long start, Metrics.CsvLoadEvent event, long rows, long bytes) {
+        Metrics.CSV_LOAD.stop(start);
+        Metrics.CSV_ROWS.add(rows);
+        Metrics.CSV_BYTES.add(bytes);
+        if (event != null && event.shouldCommit()) {
+            event.file = file.getPath();
+            event.rows = rows;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+    private boolean restoreSnapshot() {
+        long start = System.nanoTime();
+        CsvSnapshot snapshot;
+        try {
+            snapshot = CsvSnapshot.load(file, dimensions);
+        } catch (IOException e) {
+            System.err.println("Ignoring snapshot: " + e.getMessage());
+            return false;
+        }
+        if (snapshot == null)
+            return false;
+        header = snapshot.header;
+        cube = snapshot.cube;
+        if (snapshot.histogram != null)
+            committed = snapshot.histogram;
+        pendingYear = snapshot.pendingYear;
+        offset = snapshot.offset;
+        scannedSize = snapshot.sourceSize;
+        lastSummary = String.format("Loaded snapshot %s in %.1f ms", CsvSnapshot.fileFor(file, dimensions),
+                (System.nanoTime() - start) / 1e6);
+        Metrics.CSV_SNAPSHOT.stop(start);
+        return true;
+    }
+
+    // A snapshot that cannot be written only costs the next load a full parse
+    private void saveSnapshot(long modified) {
+        snapshotSavedAt = System.nanoTime();
+        unsavedModified = -1;
+        try {
+            CsvSnapshot.save(file, scannedSize, modified, offset, header, dimensions, cube, committed, pendingYear);
+        } catch (IOException e) {
+            System.err.println("Could not save snapshot: " + e.getMessage());
+        }
+    }
+
+    private static String readHeader(FileChannel channel) throws IOException {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long position = 0;
+        while (true) {
+            buffer.clear();
+            int n = channel.read(buffer, position);
+            if (n <= 0)
+                break;
+            for (int i = 0; i < n; i++) {
+                byte b = buffer.get(i);
+                if (b == '\n')
+                    return header.toString(StandardCharsets.UTF_8);
+                header.write(b);
+            }
+            position += n;
+        }
+        // No newline yet, so the header may still be growing
+        return "";
+    }
+
+    private void reset() {
+        cube = null;
+        header = "";
+        committed = new YearHistogram();
+        offset = 0;
+        scannedSize = 0;
+        pendingYear = -1;
+    }
+
+    File file() {
+        return file;
+    }
+
+    synchronized YearHistogram histogram() {
+        if (cube != null)
+            return cube.histogram(null);
+        YearHistogram histogram = committed.copy();
+        if (pendingYear >= 0)
+            histogram.add(pendingYear);
+        return histogram;
+    }
+
+    // Counts of the rows whose dimension values equal selection, where a null
+    // entry matches any value. Files without dimensions ignore the selection.
+    synchronized YearHistogram histogram(String[] selection) {
+        if (cube == null || selection == null)
+            return histogram();
+        int[] filter = cube.allFilter();
+        for (int d = 0; d < filter.length && d < selection.length; d++) {
+            if (selection[d] == null)
+                continue;
+            filter[d] = cube.code(d, selection[d]);
+            if (filter[d] == PlacementCube.ANY)
+                return new YearHistogram();
+        }
+        return cube.histogram(filter);
+    }
+
+    synchronized String[] dimensions() {
+        return cube != null ? cube.dimensions() : new String[0];
+    }
+
+    // Values of a dimension that occur in at least one row
+    synchronized String[] values(int dimension) {
+        if (cube == null)
+            return new String[0];
+        String[] all = cube.values(dimension);
+        long[] totals = cube.rollup(dimension, null);
+        List<String> present = new ArrayList<>();
+        for (int code = 0; code < all.length; code++) {
+            if (totals[code] > 0)
+                present.add(all[code]);
+        }
+        return present.toArray(new String[0]);
+    }
+
+    synchronized long offset() {
+        return offset;
+    }
+
+    synchronized String lastSummary() {
+        return lastSummary;
+    }
+
+    // Tails the file with a WatchService on a daemon thread. onChange runs on that
+    // thread after every refresh that found appended data.
+    synchronized void startWatching(Runnable onChange) throws IOException {
+        if (watcher != null)
+            return;
+
+        Path path = file.toPath().toAbsolutePath();
+        Path directory = path.getParent();
+        Path name = path.getFileName();
+        WatchService service = directory.getFileSystem().newWatchService();
+        directory.register(service, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_CREATE);
+        watchService = service;
+
+        watcher = new Thread(() -> {
+            try {
+                while (true) {
+                    WatchKey key = service.take();
+                    boolean touched = false;
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (name.equals(event.context()))
+                            touched = true;
+                    }
+                    key.reset();
+                    if (touched && refresh())
+                        onChange.run();
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                // stopped
+            } catch (IOException e) {
+                System.err.println("Stopped watching " + file + ": " + e.getMessage());
+            }
+        }, "csv-tail-" + name);
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    // Also saves appends the throttled snapshot has not caught up with; Workspace
+    // calls this when a dataset is closed
+    synchronized void stopWatching() {
+        if (watcher != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                // nothing left to release
+            }
+            watcher.interrupt();
+            watcher = null;
+            watchService = null;
+        }
+        if (unsavedModified >= 0)
+            saveSnapshot(unsavedModified);
+    }
+
+    synchronized boolean isWatching() {
+        return watcher != null;
+    }
+}
@@ -0,0 +1,84 @@
+package placement;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Lock-free latency histogram in the style of HdrHistogram: values below 64 get a
+// bucket each, larger values fall into 32 buckets per power of two, so any
+// recorded nanosecond value is reported within about 3% using a fixed 15 KB.
+final class LatencyHistogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int LINEAR = SUB_COUNT * 2;
+    private static final int BUCKETS = LINEAR + (63 - (SUB_BITS + 1)) * SUB_COUNT;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    void record(long value) {
+        if (value < 0)
+            value = 0;
+        buckets.incrementAndGet(bucket(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    long count() {
+        return count.sum();
+    }
+
+    long sum() {
+        return sum.sum();
+    }
+
+    long max() {
+        return max.get();
+    }
+
+    double mean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    // Upper bound of the bucket holding the given fraction (0..1] of the values
+    long percentile(double fraction) {
+        long total = 0;
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(fraction * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank)
+                return Math.min(upperBound(i), max.get());
+        }
+        return max.get();
+    }
+
+    static int bucket(long value) {
+        if (value < LINEAR)
+            return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BITS;
+        int mantissa = (int) (value >>> shift) - SUB_COUNT;
+        return LINEAR + (exponent - SUB_BITS - 1) * SUB_COUNT + mantissa;
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < LINEAR)
+            return bucket;
+        int index = bucket - LINEAR;
+        int shift = index / SUB_COUNT + 1;
+        long mantissa = SUB_COUNT + index % SUB_COUNT;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
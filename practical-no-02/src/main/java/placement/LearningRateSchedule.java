@@ -0,0 +1,27 @@
+package placement;
+
+// Learning rate for a given epoch, derived from the base rate in TrainingOptions
+interface LearningRateSchedule {
+    double rate(double baseRate, int epoch);
+
+    static LearningRateSchedule constant() {
+        return (baseRate, epoch) -> baseRate;
+    }
+
+    // Multiplies the rate by factor every `every` epochs
+    static LearningRateSchedule step(int every, double factor) {
+        return (baseRate, epoch) -> baseRate * Math.pow(factor, epoch / every);
+    }
+
+    static LearningRateSchedule exponential(double decay) {
+        return (baseRate, epoch) -> baseRate * Math.pow(decay, epoch);
+    }
+
+    // Cosine annealing from baseRate down to minRate over totalEpochs
+    static LearningRateSchedule cosine(int totalEpochs, double minRate) {
+        return (baseRate, epoch) -> {
+            double progress = Math.min(1.0, (double) epoch / Math.max(1, totalEpochs));
+            return minRate + (baseRate - minRate) * 0.5 * (1 + Math.cos(Math.PI * progress));
+        };
+    }
+}
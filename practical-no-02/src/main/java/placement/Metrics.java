@@ -0,0 +1,250 @@
+package placement;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import jdk.jfr.*;
+
+// Counters and latency histograms for the hot paths: CSV loads, training epochs,
+// predictions and paints. Recording is off unless the JVM starts with
+// -Dplacement.metrics=true; the flag is a static final, so when it is off the
+// JIT drops the timing calls and the hot loops run as if they were not there.
+// The JFR events below are independent of the flag and are only created while
+// a recording has them enabled.
+final class Metrics {
+    static final boolean ENABLED = Boolean.getBoolean("placement.metrics");
+
+    private static final Map<String, Object> REGISTRY = new LinkedHashMap<>();
+
+    static final Timer CSV_LOAD = timer("csv.load");
+    static final Counter CSV_ROWS = counter("csv.rows");
+    static final Counter CSV_BYTES = counter("csv.bytes");
+    static final Timer CSV_SNAPSHOT = timer("csv.snapshot");
+    static final Timer TRAIN_EPOCH = timer("train.epoch");
+    static final Counter TRAIN_SAMPLES = counter("train.samples");
+    static final Gauge TRAIN_LOSS = gauge("train.loss");
+    static final Timer PREDICT = timer("predict");
+    static final Timer FORECAST = timer("forecast");
+    static final Counter PREDICTION_CACHE_HITS = counter("prediction.hits");
+    static final Counter PREDICTION_CACHE_MISSES = counter("prediction.misses");
+    static final Counter PREDICTION_CACHE_EVICTIONS = counter("prediction.evictions");
+    static final Timer PAINT = timer("paint");
+    static final Timer HTTP_REQUEST = timer("http.request");
+    // Mean batch size is batched / batches
+    static final Counter FORECAST_BATCHES = counter("forecast.batches");
+    static final Counter FORECAST_BATCHED = counter("forecast.batched");
+
+    private Metrics() {
+    }
+
+    static final class Counter {
+        private final LongAdder value = new LongAdder();
+
+        void add(long n) {
+            if (ENABLED)
+                value.add(n);
+        }
+
+        long get() {
+            return value.sum();
+        }
+    }
+
+    static final class Gauge {
+        private volatile double value = Double.NaN;
+
+        void set(double v) {
+            if (ENABLED)
+                value = v;
+        }
+
+        double get() {
+            return value;
+        }
+    }
+
+    // Durations in nanoseconds: long start = Metrics.start(); ... TIMER.stop(start);
+    static final class Timer {
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        void stop(long start) {
+            if (ENABLED)
+                histogram.record(System.nanoTime() - start);
+        }
+    }
+
+    static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    private static Timer timer(String name) {
+        Timer timer = new Timer();
+        REGISTRY.put(name, timer);
+        return timer;
+    }
+
+    private static Counter counter(String name) {
+        Counter counter = new Counter();
+        REGISTRY.put(name, counter);
+        return counter;
+    }
+
+    private static Gauge gauge(String name) {
+        Gauge gauge = new Gauge();
+        REGISTRY.put(name, gauge);
+        return gauge;
+    }
+
+    // Per busy second: the time spent inside the timed calls, not wall time
+    private static double rate(Counter counter, Timer timer) {
+        long nanos = timer.histogram.sum();
+        return nanos == 0 ? 0 : counter.get() * 1e9 / nanos;
+    }
+
+    // Share of prediction cache lookups that hit
+    private static double hitRate() {
+        long lookups = PREDICTION_CACHE_HITS.get() + PREDICTION_CACHE_MISSES.get();
+        return lookups == 0 ? 0 : (double) PREDICTION_CACHE_HITS.get() / lookups;
+    }
+
+    static String toText() {
+        StringBuilder text = new StringBuilder();
+        if (!ENABLED)
+            text.append("Metrics are off; start the JVM with -Dplacement.metrics=true\n");
+        for (Map.Entry<String, Object> entry : REGISTRY.entrySet()) {
+            text.append(String.format(Locale.ROOT, "%-22s", entry.getKey()));
+            Object metric = entry.getValue();
+            if (metric instanceof Timer) {
+                LatencyHistogram h = ((Timer) metric).histogram;
+                text.append(String.format(Locale.ROOT, "count=%d mean=%s p50=%s p99=%s p999=%s max=%s", h.count(),
+                        duration(h.mean()), duration(h.percentile(0.5)), duration(h.percentile(0.99)),
+                        duration(h.percentile(0.999)), duration(h.max())));
+            } else if (metric instanceof Counter) {
+                text.append(((Counter) metric).get());
+            } else {
+                text.append(String.format(Locale.ROOT, "%.6f", ((Gauge) metric).get()));
+            }
+            text.append('\n');
+        }
+        text.append(String.format(Locale.ROOT, "%-22s%.0f rows/s, %.1f MB/s%n", "csv.rate",
+                rate(CSV_ROWS, CSV_LOAD), rate(CSV_BYTES, CSV_LOAD) / 1e6));
+        text.append(String.format(Locale.ROOT, "%-22s%.0f samples/s%n", "train.rate",
+                rate(TRAIN_SAMPLES, TRAIN_EPOCH)));
+        text.append(String.format(Locale.ROOT, "%-22s%.1f%%%n", "prediction.rate", 100 * hitRate()));
+        return text.toString();
+    }
+
+    // Timers are reported in nanoseconds
+    static String toJson() {
+        StringBuilder json = new StringBuilder("{\n  \"enabled\": ").append(ENABLED);
+        for (Map.Entry<String, Object> entry : REGISTRY.entrySet()) {
+            json.append(",\n  \"").append(entry.getKey()).append("\": ");
+            Object metric = entry.getValue();
+            if (metric instanceof Timer) {
+                LatencyHistogram h = ((Timer) metric).histogram;
+                json.append(String.format(Locale.ROOT,
+                        "{\"count\": %d, \"sum\": %d, \"mean\": %.1f, \"p50\": %d, \"p90\": %d, \"p99\": %d,"
+                                + " \"p999\": %d, \"max\": %d}",
+                        h.count(), h.sum(), h.mean(), h.percentile(0.5), h.percentile(0.9), h.percentile(0.99),
+                        h.percentile(0.999), h.max()));
+            } else if (metric instanceof Counter) {
+                json.append(((Counter) metric).get());
+            } else {
+                double value = ((Gauge) metric).get();
+                json.append(Double.isNaN(value) ? "null" : String.format(Locale.ROOT, "%.6g", value));
+            }
+        }
+        json.append(String.format(Locale.ROOT,
+                ",\n  \"csv.rowsPerSecond\": %.1f,\n  \"csv.bytesPerSecond\": %.1f,\n  \"train.samplesPerSecond\": %.1f,"
+                        + "\n  \"prediction.hitRate\": %.4f\n}\n",
+                rate(CSV_ROWS, CSV_LOAD), rate(CSV_BYTES, CSV_LOAD), rate(TRAIN_SAMPLES, TRAIN_EPOCH), hitRate()));
+        return json.toString();
+    }
+
+    // JSON for a .json file, the text table otherwise
+    static void dump(File file) throws IOException {
+        String content = file.getName().endsWith(".json") ? toJson() : toText();
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            out.write(content);
+        }
+    }
+
+    private static String duration(double nanos) {
+        if (nanos < 1e3)
+            return String.format(Locale.ROOT, "%.0fns", nanos);
+        if (nanos < 1e6)
+            return String.format(Locale.ROOT, "%.1fus", nanos / 1e3);
+        if (nanos < 1e9)
+            return String.format(Locale.ROOT, "%.1fms", nanos / 1e6);
+        return String.format(Locale.ROOT, "%.2fs", nanos / 1e9);
+    }
+
+    @Name("placement.CsvLoad")
+    @Label("CSV Load")
+    @Category("Placement Trend Analyzer")
+    static final class CsvLoadEvent extends jdk.jfr.Event {
+        @Label("File")
+        String file;
+        @Label("Rows")
+        long rows;
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+    }
+
+    // Looking an event type up starts JFR's metadata repository, a few hundred
+    // ms, so the types are only touched once a flight recorder exists
+    private static final class EventTypes {
+        static final EventType CSV_LOAD = EventType.getEventType(CsvLoadEvent.class);
+        static final EventType EPOCH = EventType.getEventType(EpochEvent.class);
+        static final EventType PAINT = EventType.getEventType(PaintEvent.class);
+    }
+
+    // The begin methods return a started event, or null while no recording has
+    // it enabled, so the hot paths allocate nothing when JFR is off
+
+    static CsvLoadEvent beginCsvLoad() {
+        if (!FlightRecorder.isInitialized() || !EventTypes.CSV_LOAD.isEnabled())
+            return null;
+        CsvLoadEvent event = new CsvLoadEvent();
+        event.begin();
+        return event;
+    }
+
+    static EpochEvent beginEpoch() {
+        if (!FlightRecorder.isInitialized() || !EventTypes.EPOCH.isEnabled())
+            return null;
+        EpochEvent event = new EpochEvent();
+        event.begin();
+        return event;
+    }
+
+    static PaintEvent beginPaint() {
+        if (!FlightRecorder.isInitialized() || !EventTypes.PAINT.isEnabled())
+            return null;
+        PaintEvent event = new PaintEvent();
+        event.begin();
+        return event;
+    }
+
+    @Name("placement.TrainingEpoch")
+    @Label("Training Epoch")
+    @Category("Placement Trend Analyzer")
+    static final class EpochEvent extends jdk.jfr.Event {
+        @Label("Epoch")
+        int epoch;
+        @Label("Samples")
+        int samples;
+        @Label("Loss")
+        double loss;
+    }
+
+    @Name("placement.Paint")
+    @Label("Chart Paint")
+    @Category("Placement Trend Analyzer")
+    static final class PaintEvent extends jdk.jfr.Event {
+        @Label("Points")
+        int points;
+    }
+}
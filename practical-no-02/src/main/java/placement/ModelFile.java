@@ -0,0 +1,117 @@
+package placement;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.zip.CRC32;
+
+// Binary model format, big endian:
+//   int magic 'PTNN', int version
+//   int inputSize, hiddenSize1, hiddenSize2, outputSize
+//   int baseYear, double maxCount
+//   int members (version 2 and later; version 1 files hold one network)
+//   per member: double[] weights and biases in NeuralNetwork.parameters() order
+//   long CRC32 of everything before it
+// Loading maps the file and bulk copies the doubles straight into the weight arrays.
+final class ModelFile {
+    static final int MAGIC = 0x50544E4E;
+    static final int VERSION = 2;
+    private static final int HEADER_BYTES_V1 = 4 * 7 + 8;
+    private static final int HEADER_BYTES = HEADER_BYTES_V1 + 4;
+
+    private ModelFile() {
+    }
+
+    static void save(TrainedModel model, Path path) throws IOException {
+        NeuralNetwork network = model.members[0];
+        int doubles = 0;
+        for (double[] p : network.parameters()) {
+            doubles += p.length;
+        }
+        int members = model.members.length;
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + members * doubles * 8 + 8);
+        buffer.putInt(MAGIC).putInt(VERSION);
+        buffer.putInt(network.inputSize()).putInt(network.hiddenSize1()).putInt(network.hiddenSize2())
+                .putInt(network.outputSize());
+        buffer.putInt(model.baseYear).putDouble(model.maxCount);
+        buffer.putInt(members);
+        DoubleBuffer values = buffer.asDoubleBuffer();
+        for (NeuralNetwork member : model.members) {
+            for (double[] p : member.parameters()) {
+                values.put(p);
+            }
+        }
+        buffer.position(buffer.position() + members * doubles * 8);
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putLong(crc.getValue());
+        buffer.flip();
+
+        // Write next to the target and move into place so readers never see half a
+        // file; the temp name is unique, so the CLI, GUI and server saving the same
+        // model at once each move a whole file and the last one wins
+        Path target = path.toAbsolutePath();
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    static TrainedModel load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES_V1 + 8)
+                throw new IOException("Not a placement model file: " + path);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            if (buffer.getInt() != MAGIC)
+                throw new IOException("Not a placement model file: " + path);
+            int version = buffer.getInt();
+            if (version < 1 || version > VERSION)
+                throw new IOException("Unsupported model file version " + version + ": " + path);
+
+            int inputSize = buffer.getInt();
+            int hiddenSize1 = buffer.getInt();
+            int hiddenSize2 = buffer.getInt();
+            int outputSize = buffer.getInt();
+            int baseYear = buffer.getInt();
+            double maxCount = buffer.getDouble();
+            int members = version >= 2 ? buffer.getInt() : 1;
+            if (inputSize <= 0 || hiddenSize1 <= 0 || hiddenSize2 <= 0 || outputSize <= 0 || members <= 0)
+                throw new IOException("Corrupt model file: " + path);
+
+            long doubles = (long) inputSize * hiddenSize1 + (long) hiddenSize1 * hiddenSize2
+                    + (long) hiddenSize2 * outputSize + hiddenSize1 + hiddenSize2 + outputSize;
+            int headerBytes = version >= 2 ? HEADER_BYTES : HEADER_BYTES_V1;
+            if (size != headerBytes + members * doubles * 8 + 8)
+                throw new IOException("Corrupt model file: " + path);
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate().position(0).limit((int) size - 8));
+            if (crc.getValue() != buffer.getLong((int) size - 8))
+                throw new IOException("Model file checksum mismatch: " + path);
+
+            NeuralNetwork[] networks = new NeuralNetwork[members];
+            DoubleBuffer values = buffer.asDoubleBuffer();
+            for (int m = 0; m < members; m++) {
+                networks[m] = new NeuralNetwork(inputSize, hiddenSize1, hiddenSize2, outputSize, 0L);
+                for (double[] p : networks[m].parameters()) {
+                    values.get(p);
+                }
+            }
+            return new TrainedModel(networks, maxCount, baseYear);
+        }
+    }
+}
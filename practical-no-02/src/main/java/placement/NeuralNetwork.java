@@ -0,0 +1,627 @@
+package placement;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Feed forward network with two ReLU hidden layers and a sigmoid output.
+// Each weight matrix is one flat row-major array with a row per neuron of the
+// next layer, so every dot product walks contiguous memory. Training and
+// prediction reuse preallocated Scratch buffers instead of allocating per sample.
+// Mini-batch training runs each layer as a matrix product over the batch and
+// splits the batch across a fork-join pool.
+class NeuralNetwork {
+    // Shared by every training run, so concurrent runs and the ensemble members
+    // and batch splits inside them never add up to more than one worker per core
+    static final ForkJoinPool TRAINING_POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    interface EpochListener {
+        // Called after every epoch with the mean loss; return false to stop training
+        boolean epochCompleted(int epoch, double loss);
+    }
+
+    // Activation and error buffers for one forward/backward pass
+    static final class Scratch {
+        final double[] hidden1Raw;
+        final double[] hidden1;
+        final double[] hidden2Raw;
+        final double[] hidden2;
+        final double[] output;
+        final double[] outputError;
+        final double[] hidden2Error;
+        final double[] hidden1Error;
+
+        Scratch(NeuralNetwork network) {
+            hidden1Raw = new double[network.hiddenSize1];
+            hidden1 = new double[network.hiddenSize1];
+            hidden2Raw = new double[network.hiddenSize2];
+            hidden2 = new double[network.hiddenSize2];
+            output = new double[network.outputSize];
+            outputError = new double[network.outputSize];
+            hidden2Error = new double[network.hiddenSize2];
+            hidden1Error = new double[network.hiddenSize1];
+        }
+    }
+
+    // Gradient sums laid out like the weights and biases they belong to
+    static final class Gradients {
+        final double[] weightsInputHidden1;
+        final double[] weightsHidden1Hidden2;
+        final double[] weightsHidden2Output;
+        final double[] biasHidden1;
+        final double[] biasHidden2;
+        final double[] biasOutput;
+        double loss;
+
+        Gradients(NeuralNetwork network) {
+            weightsInputHidden1 = new double[network.weightsInputHidden1.length];
+            weightsHidden1Hidden2 = new double[network.weightsHidden1Hidden2.length];
+            weightsHidden2Output = new double[network.weightsHidden2Output.length];
+            biasHidden1 = new double[network.hiddenSize1];
+            biasHidden2 = new double[network.hiddenSize2];
+            biasOutput = new double[network.outputSize];
+        }
+
+        void clear() {
+            Arrays.fill(weightsInputHidden1, 0);
+            Arrays.fill(weightsHidden1Hidden2, 0);
+            Arrays.fill(weightsHidden2Output, 0);
+            Arrays.fill(biasHidden1, 0);
+            Arrays.fill(biasHidden2, 0);
+            Arrays.fill(biasOutput, 0);
+            loss = 0;
+        }
+
+        // Same order as NeuralNetwork.parameters()
+        double[][] arrays() {
+            return new double[][] { weightsInputHidden1, weightsHidden1Hidden2, weightsHidden2Output, biasHidden1,
+                    biasHidden2, biasOutput };
+        }
+
+        void add(Gradients other) {
+            addInto(weightsInputHidden1, other.weightsInputHidden1);
+            addInto(weightsHidden1Hidden2, other.weightsHidden1Hidden2);
+            addInto(weightsHidden2Output, other.weightsHidden2Output);
+            addInto(biasHidden1, other.biasHidden1);
+            addInto(biasHidden2, other.biasHidden2);
+            addInto(biasOutput, other.biasOutput);
+            loss += other.loss;
+        }
+
+        private static void addInto(double[] sum, double[] values) {
+            for (int i = 0; i < sum.length; i++) {
+                sum[i] += values[i];
+            }
+        }
+    }
+
+    // Row-major activation and delta matrices for up to `rows` samples
+    static final class BatchScratch {
+        final int rows;
+        final double[] input;
+        final double[] target;
+        final double[] hidden1Raw;
+        final double[] hidden1;
+        final double[] hidden2Raw;
+        final double[] hidden2;
+        final double[] output;
+        final double[] outputDelta;
+        final double[] hidden2Delta;
+        final double[] hidden1Delta;
+
+        BatchScratch(NeuralNetwork network, int rows) {
+            this.rows = rows;
+            input = new double[rows * network.inputSize];
+            target = new double[rows * network.outputSize];
+            hidden1Raw = new double[rows * network.hiddenSize1];
+            hidden1 = new double[rows * network.hiddenSize1];
+            hidden2Raw = new double[rows * network.hiddenSize2];
+            hidden2 = new double[rows * network.hiddenSize2];
+            output = new double[rows * network.outputSize];
+            outputDelta = new double[rows * network.outputSize];
+            hidden2Delta = new double[rows * network.hiddenSize2];
+            hidden1Delta = new double[rows * network.hiddenSize1];
+        }
+    }
+
+    private int inputSize;
+    private int hiddenSize1;
+    private int hiddenSize2;
+    private int outputSize;
+
+    // weightsInputHidden1[j * inputSize + i] connects input i to hidden1 neuron j
+    private double[] weightsInputHidden1;
+    private double[] weightsHidden1Hidden2;
+    private double[] weightsHidden2Output;
+
+    private double[] biasHidden1;
+    private double[] biasHidden2;
+    private double[] biasOutput;
+
+    private Random random;
+
+    // predict(double[]) may be called from several threads at once
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(() -> new Scratch(this));
+
+    public NeuralNetwork(int inputSize, int hiddenSize1, int hiddenSize2, int outputSize) {
+        this(inputSize, hiddenSize1, hiddenSize2, outputSize, new Random());
+    }
+
+    public NeuralNetwork(int inputSize, int hiddenSize1, int hiddenSize2, int outputSize, long seed) {
+        this(inputSize, hiddenSize1, hiddenSize2, outputSize, new Random(seed));
+    }
+
+    private NeuralNetwork(int inputSize, int hiddenSize1, int hiddenSize2, int outputSize, Random random) {
+        this.inputSize = inputSize;
+        this.hiddenSize1 = hiddenSize1;
+        this.hiddenSize2 = hiddenSize2;
+        this.outputSize = outputSize;
+        this.random = random;
+
+        weightsInputHidden1 = new double[inputSize * hiddenSize1];
+        weightsHidden1Hidden2 = new double[hiddenSize1 * hiddenSize2];
+        weightsHidden2Output = new double[hiddenSize2 * outputSize];
+
+        biasHidden1 = new double[hiddenSize1];
+        biasHidden2 = new double[hiddenSize2];
+        biasOutput = new double[outputSize];
+
+        initializeWeights();
+    }
+
+    private void initializeWeights() {
+        double scale1 = Math.sqrt(2.0 / inputSize);
+        double scale2 = Math.sqrt(2.0 / hiddenSize1);
+        double scale3 = Math.sqrt(2.0 / hiddenSize2);
+
+        // Draw in the same (from, to) order as the original jagged arrays so a
+        // given seed still produces the same network
+        for (int i = 0; i < inputSize; i++) {
+            for (int j = 0; j < hiddenSize1; j++) {
+                weightsInputHidden1[j * inputSize + i] = random.nextGaussian() * scale1;
+            }
+        }
+
+        for (int i = 0; i < hiddenSize1; i++) {
+            for (int j = 0; j < hiddenSize2; j++) {
+                weightsHidden1Hidden2[j * hiddenSize1 + i] = random.nextGaussian() * scale2;
+            }
+        }
+
+        for (int i = 0; i < hiddenSize2; i++) {
+            for (int j = 0; j < outputSize; j++) {
+                weightsHidden2Output[j * hiddenSize2 + i] = random.nextGaussian() * scale3;
+            }
+        }
+
+        Arrays.fill(biasHidden1, 0.01);
+        Arrays.fill(biasHidden2, 0.01);
+        Arrays.fill(biasOutput, 0.01);
+    }
+
+    private static double relu(double x) {
+        return Math.max(0, x);
+    }
+
+    private static double reluDerivative(double x) {
+        return x > 0 ? 1 : 0;
+    }
+
+    private static double sigmoid(double x) {
+        return 1.0 / (1.0 + Math.exp(-x));
+    }
+
+    Scratch newScratch() {
+        return new Scratch(this);
+    }
+
+    public double[] predict(double[] input) {
+        double[] output = new double[outputSize];
+        predict(input, output, scratch.get());
+        return output;
+    }
+
+    // Allocation free; output must hold outputSize values
+    public void predict(double[] input, double[] output, Scratch scratch) {
+        long start = Metrics.start();
+        forward(input, scratch);
+        System.arraycopy(scratch.output, 0, output, 0, outputSize);
+        Metrics.PREDICT.stop(start);
+    }
+
+    private void forward(double[] input, Scratch s) {
+        for (int j = 0; j < hiddenSize1; j++) {
+            double sum = biasHidden1[j];
+            int row = j * inputSize;
+            for (int i = 0; i < inputSize; i++) {
+                sum += input[i] * weightsInputHidden1[row + i];
+            }
+            s.hidden1Raw[j] = sum;
+            s.hidden1[j] = relu(sum);
+        }
+
+        for (int j = 0; j < hiddenSize2; j++) {
+            double sum = biasHidden2[j];
+            int row = j * hiddenSize1;
+            for (int i = 0; i < hiddenSize1; i++) {
+                sum += s.hidden1[i] * weightsHidden1Hidden2[row + i];
+            }
+            s.hidden2Raw[j] = sum;
+            s.hidden2[j] = relu(sum);
+        }
+
+        for (int j = 0; j < outputSize; j++) {
+            double sum = biasOutput[j];
+            int row = j * hiddenSize2;
+            for (int i = 0; i < hiddenSize2; i++) {
+                sum += s.hidden2[i] * weightsHidden2Output[row + i];
+            }
+            s.output[j] = sigmoid(sum);
+        }
+    }
+
+    public void train(List<double[]> inputs, List<double[]> outputs, int epochs, double learningRate) {
+        train(inputs, outputs, epochs, learningRate, (epoch, loss) -> true);
+    }
+
+    // Per sample SGD. Returns false if the listener stopped training early
+    public boolean train(List<double[]> inputs, List<double[]> outputs, int epochs, double learningRate,
+            EpochListener listener) {
+        Scratch s = new Scratch(this);
+
+        for (int epoch = 0; epoch < epochs; epoch++) {
+            long start = Metrics.start();
+            Metrics.EpochEvent event = Metrics.beginEpoch();
+            double totalLoss = 0;
+
+            for (int sample = 0; sample < inputs.size(); sample++) {
+                double[] input = inputs.get(sample);
+                double[] target = outputs.get(sample);
+
+                forward(input, s);
+
+                for (int i = 0; i < outputSize; i++) {
+                    totalLoss += Math.pow(target[i] - s.output[i], 2);
+                }
+
+                backward(input, target, s, learningRate);
+            }
+
+            double loss = totalLoss / inputs.size();
+            epochCompleted(start, event, epoch, inputs.size(), loss);
+            if (!listener.epochCompleted(epoch, loss)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void backward(double[] input, double[] target, Scratch s, double learningRate) {
+        for (int i = 0; i < outputSize; i++) {
+            s.outputError[i] = (s.output[i] - target[i]) * s.output[i] * (1 - s.output[i]);
+        }
+
+        for (int i = 0; i < hiddenSize2; i++) {
+            double error = 0;
+            for (int j = 0; j < outputSize; j++) {
+                error += s.outputError[j] * weightsHidden2Output[j * hiddenSize2 + i];
+            }
+            s.hidden2Error[i] = error * reluDerivative(s.hidden2Raw[i]);
+        }
+
+        for (int i = 0; i < hiddenSize1; i++) {
+            double error = 0;
+            for (int j = 0; j < hiddenSize2; j++) {
+                error += s.hidden2Error[j] * weightsHidden1Hidden2[j * hiddenSize1 + i];
+            }
+            s.hidden1Error[i] = error * reluDerivative(s.hidden1Raw[i]);
+        }
+
+        for (int j = 0; j < outputSize; j++) {
+            int row = j * hiddenSize2;
+            for (int i = 0; i < hiddenSize2; i++) {
+                weightsHidden2Output[row + i] -= learningRate * s.outputError[j] * s.hidden2[i];
+            }
+        }
+        for (int i = 0; i < outputSize; i++) {
+            biasOutput[i] -= learningRate * s.outputError[i];
+        }
+
+        for (int j = 0; j < hiddenSize2; j++) {
+            int row = j * hiddenSize1;
+            for (int i = 0; i < hiddenSize1; i++) {
+                weightsHidden1Hidden2[row + i] -= learningRate * s.hidden2Error[j] * s.hidden1[i];
+            }
+        }
+        for (int i = 0; i < hiddenSize2; i++) {
+            biasHidden2[i] -= learningRate * s.hidden2Error[i];
+        }
+
+        for (int j = 0; j < hiddenSize1; j++) {
+            int row = j * inputSize;
+            for (int i = 0; i < inputSize; i++) {
+                weightsInputHidden1[row + i] -= learningRate * s.hidden1Error[j] * input[i];
+            }
+        }
+        for (int i = 0; i < hiddenSize1; i++) {
+            biasHidden1[i] -= learningRate * s.hidden1Error[i];
+        }
+    }
+
+    // Mini-batch gradient descent. Each batch is cut into one chunk per worker,
+    // every chunk accumulates gradients into its own buffers, and the buffers are
+    // summed in a fixed order before the optimizer step so results do not depend
+    // on thread timing. Returns false if the listener stopped training; stopping
+    // early on a loss plateau counts as a completed run.
+    public boolean train(List<double[]> inputs, List<double[]> outputs, TrainingOptions options,
+            EpochListener listener) {
+        int samples = inputs.size();
+        if (samples == 0)
+            return true;
+        int batchSize = Math.min(options.batchSize, samples);
+        int slots = Math.min(options.threads, batchSize);
+        int chunkRows = (batchSize + slots - 1) / slots;
+
+        Gradients[] gradients = new Gradients[slots];
+        BatchScratch[] scratches = new BatchScratch[slots];
+        for (int k = 0; k < slots; k++) {
+            gradients[k] = new Gradients(this);
+            scratches[k] = new BatchScratch(this, chunkRows);
+        }
+
+        int[] order = new int[samples];
+        for (int i = 0; i < samples; i++) {
+            order[i] = i;
+        }
+
+        double[][] params = parameters();
+        double[][] summed = gradients[0].arrays();
+        Optimizer optimizer = options.optimizer.get();
+        EarlyStopping.Monitor monitor = options.earlyStopping != null ? options.earlyStopping.monitor() : null;
+        boolean validate = options.validationInputs != null && !options.validationInputs.isEmpty();
+        Scratch validationScratch = validate ? new Scratch(this) : null;
+
+        for (int epoch = 0; epoch < options.epochs; epoch++) {
+            long epochStart = Metrics.start();
+            Metrics.EpochEvent event = Metrics.beginEpoch();
+            shuffle(order);
+            double totalLoss = 0;
+            double learningRate = options.schedule.rate(options.learningRate, epoch);
+
+            for (int start = 0; start < samples; start += batchSize) {
+                int rows = Math.min(batchSize, samples - start);
+                int chunk = (rows + slots - 1) / slots;
+                int used = (rows + chunk - 1) / chunk;
+
+                if (used == 1)
+                    computeChunk(inputs, outputs, order, start, rows, scratches[0], gradients[0]);
+                else
+                    TRAINING_POOL.invoke(new BatchTask(inputs, outputs, order, start, rows, chunk, gradients,
+                            scratches, 0, used));
+
+                for (int k = 1; k < used; k++) {
+                    gradients[0].add(gradients[k]);
+                }
+                totalLoss += gradients[0].loss;
+                optimizer.step(params, summed, learningRate, 1.0 / rows);
+            }
+
+            double loss = totalLoss / samples;
+            epochCompleted(epochStart, event, epoch, samples, loss);
+            if (!listener.epochCompleted(epoch, loss)) {
+                return false;
+            }
+            if (monitor != null) {
+                double monitored = validate
+                        ? loss(options.validationInputs, options.validationOutputs, validationScratch)
+                        : loss;
+                if (monitor.shouldStop(monitored))
+                    return true;
+            }
+        }
+        return true;
+    }
+
+    private static void epochCompleted(long start, Metrics.EpochEvent event, int epoch, int samples, double loss) {
+        Metrics.TRAIN_EPOCH.stop(start);
+        Metrics.TRAIN_SAMPLES.add(samples);
+        Metrics.TRAIN_LOSS.set(loss);
+        if (event != null && event.shouldCommit()) {
+            event.epoch = epoch;
+            event.samples = samples;
+            event.loss = loss;
+            event.commit();
+        }
+    }
+
+    private void shuffle(int[] order) {
+        for (int i = order.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+    }
+
+    // Computes the gradients of chunks [from, to) of one batch, splitting the range
+    // in half until a single chunk is left
+    private final class BatchTask extends RecursiveAction {
+        private final List<double[]> inputs;
+        private final List<double[]> outputs;
+        private final int[] order;
+        private final int start;
+        private final int rows;
+        private final int chunk;
+        private final Gradients[] gradients;
+        private final BatchScratch[] scratches;
+        private final int from;
+        private final int to;
+
+        BatchTask(List<double[]> inputs, List<double[]> outputs, int[] order, int start, int rows, int chunk,
+                Gradients[] gradients, BatchScratch[] scratches, int from, int to) {
+            this.inputs = inputs;
+            this.outputs = outputs;
+            this.order = order;
+            this.start = start;
+            this.rows = rows;
+            this.chunk = chunk;
+            this.gradients = gradients;
+            this.scratches = scratches;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new BatchTask(inputs, outputs, order, start, rows, chunk, gradients, scratches, from, mid),
+                        new BatchTask(inputs, outputs, order, start, rows, chunk, gradients, scratches, mid, to));
+                return;
+            }
+            computeChunk(inputs, outputs, order, start + from * chunk, Math.min(chunk, rows - from * chunk),
+                    scratches[from], gradients[from]);
+        }
+    }
+
+    // Gradients of the count samples at order[first...] into g
+    private void computeChunk(List<double[]> inputs, List<double[]> outputs, int[] order, int first, int count,
+            BatchScratch b, Gradients g) {
+        for (int r = 0; r < count; r++) {
+            int sample = order[first + r];
+            System.arraycopy(inputs.get(sample), 0, b.input, r * inputSize, inputSize);
+            System.arraycopy(outputs.get(sample), 0, b.target, r * outputSize, outputSize);
+        }
+        g.clear();
+        accumulateGradients(b, count, g);
+    }
+
+    // Forward and backward pass over `rows` samples in matrix form:
+    // H1 = relu(X W1^T + b1), H2 = relu(H1 W2^T + b2), Y = sigmoid(H2 W3^T + b3),
+    // then deltas D3, D2 = (D3 W3) * relu'(H2), D1 = (D2 W2) * relu'(H1) and
+    // weight gradients dW = D^T A summed over the rows.
+    void accumulateGradients(BatchScratch b, int rows, Gradients g) {
+        layerForward(b.input, inputSize, weightsInputHidden1, biasHidden1, hiddenSize1, b.hidden1Raw, b.hidden1, rows);
+        layerForward(b.hidden1, hiddenSize1, weightsHidden1Hidden2, biasHidden2, hiddenSize2, b.hidden2Raw, b.hidden2,
+                rows);
+
+        double loss = 0;
+        for (int r = 0; r < rows; r++) {
+            int hidden = r * hiddenSize2;
+            for (int k = 0; k < outputSize; k++) {
+                double sum = biasOutput[k];
+                int row = k * hiddenSize2;
+                for (int i = 0; i < hiddenSize2; i++) {
+                    sum += b.hidden2[hidden + i] * weightsHidden2Output[row + i];
+                }
+                double out = sigmoid(sum);
+                double target = b.target[r * outputSize + k];
+                b.output[r * outputSize + k] = out;
+                b.outputDelta[r * outputSize + k] = (out - target) * out * (1 - out);
+                loss += (target - out) * (target - out);
+            }
+        }
+        g.loss += loss;
+
+        layerBackward(b.outputDelta, outputSize, weightsHidden2Output, hiddenSize2, b.hidden2Raw, b.hidden2Delta, rows);
+        layerBackward(b.hidden2Delta, hiddenSize2, weightsHidden1Hidden2, hiddenSize1, b.hidden1Raw, b.hidden1Delta,
+                rows);
+
+        accumulateWeights(b.outputDelta, outputSize, b.hidden2, hiddenSize2, g.weightsHidden2Output, g.biasOutput,
+                rows);
+        accumulateWeights(b.hidden2Delta, hiddenSize2, b.hidden1, hiddenSize1, g.weightsHidden1Hidden2,
+                g.biasHidden2, rows);
+        accumulateWeights(b.hidden1Delta, hiddenSize1, b.input, inputSize, g.weightsInputHidden1, g.biasHidden1,
+                rows);
+    }
+
+    private static void layerForward(double[] in, int inSize, double[] weights, double[] bias, int outSize,
+            double[] raw, double[] activated, int rows) {
+        for (int r = 0; r < rows; r++) {
+            int inRow = r * inSize;
+            int outRow = r * outSize;
+            for (int j = 0; j < outSize; j++) {
+                double sum = bias[j];
+                int row = j * inSize;
+                for (int i = 0; i < inSize; i++) {
+                    sum += in[inRow + i] * weights[row + i];
+                }
+                raw[outRow + j] = sum;
+                activated[outRow + j] = relu(sum);
+            }
+        }
+    }
+
+    // delta(prev) = (delta(next) W) * relu'(raw(prev))
+    private static void layerBackward(double[] nextDelta, int nextSize, double[] weights, int prevSize,
+            double[] prevRaw, double[] prevDelta, int rows) {
+        for (int r = 0; r < rows; r++) {
+            int prevRow = r * prevSize;
+            Arrays.fill(prevDelta, prevRow, prevRow + prevSize, 0);
+            for (int k = 0; k < nextSize; k++) {
+                double d = nextDelta[r * nextSize + k];
+                int row = k * prevSize;
+                for (int i = 0; i < prevSize; i++) {
+                    prevDelta[prevRow + i] += d * weights[row + i];
+                }
+            }
+            for (int i = 0; i < prevSize; i++) {
+                prevDelta[prevRow + i] *= reluDerivative(prevRaw[prevRow + i]);
+            }
+        }
+    }
+
+    // gradW += delta^T * activations, gradB += column sums of delta
+    private static void accumulateWeights(double[] delta, int outSize, double[] activations, int inSize,
+            double[] gradWeights, double[] gradBias, int rows) {
+        for (int r = 0; r < rows; r++) {
+            int inRow = r * inSize;
+            for (int j = 0; j < outSize; j++) {
+                double d = delta[r * outSize + j];
+                gradBias[j] += d;
+                if (d == 0)
+                    continue;
+                int row = j * inSize;
+                for (int i = 0; i < inSize; i++) {
+                    gradWeights[row + i] += d * activations[inRow + i];
+                }
+            }
+        }
+    }
+
+    // Mean squared error over a data set, without updating the weights
+    double loss(List<double[]> inputs, List<double[]> outputs, Scratch s) {
+        double total = 0;
+        for (int sample = 0; sample < inputs.size(); sample++) {
+            forward(inputs.get(sample), s);
+            double[] target = outputs.get(sample);
+            for (int i = 0; i < outputSize; i++) {
+                double diff = target[i] - s.output[i];
+                total += diff * diff;
+            }
+        }
+        return total / inputs.size();
+    }
+
+    // Trainable arrays, shared with the network so optimizers update them in place
+    double[][] parameters() {
+        return new double[][] { weightsInputHidden1, weightsHidden1Hidden2, weightsHidden2Output, biasHidden1,
+                biasHidden2, biasOutput };
+    }
+
+    int inputSize() {
+        return inputSize;
+    }
+
+    int hiddenSize1() {
+        return hiddenSize1;
+    }
+
+    int hiddenSize2() {
+        return hiddenSize2;
+    }
+
+    int outputSize() {
+        return outputSize;
+    }
+}
@@ -0,0 +1,145 @@
+package placement;
+
+// Turns the gradients of one batch into a weight update. Optimizers that keep
+// per-parameter state (momentum, moment estimates) allocate it on the first step,
+// so every training run needs its own instance.
+interface Optimizer {
+    // params[k] and gradients[k] have the same length; gradientScale turns the
+    // summed batch gradient into a mean
+    void step(double[][] params, double[][] gradients, double learningRate, double gradientScale);
+
+    static Optimizer sgd() {
+        return new Sgd();
+    }
+
+    static Optimizer momentum(double beta) {
+        return new Momentum(beta);
+    }
+
+    static Optimizer adam() {
+        return new Adam(0.9, 0.999, 1e-8);
+    }
+
+    static Optimizer adam(double beta1, double beta2, double epsilon) {
+        return new Adam(beta1, beta2, epsilon);
+    }
+
+    static Optimizer rmsProp() {
+        return new RmsProp(0.9, 1e-8);
+    }
+
+    static Optimizer rmsProp(double decay, double epsilon) {
+        return new RmsProp(decay, epsilon);
+    }
+
+    static double[][] zerosLike(double[][] params) {
+        double[][] state = new double[params.length][];
+        for (int k = 0; k < params.length; k++) {
+            state[k] = new double[params[k].length];
+        }
+        return state;
+    }
+}
+
+final class Sgd implements Optimizer {
+    @Override
+    public void step(double[][] params, double[][] gradients, double learningRate, double gradientScale) {
+        double rate = learningRate * gradientScale;
+        for (int k = 0; k < params.length; k++) {
+            double[] p = params[k];
+            double[] g = gradients[k];
+            for (int i = 0; i < p.length; i++) {
+                p[i] -= rate * g[i];
+            }
+        }
+    }
+}
+
+final class Momentum implements Optimizer {
+    private final double beta;
+    private double[][] velocity;
+
+    Momentum(double beta) {
+        this.beta = beta;
+    }
+
+    @Override
+    public void step(double[][] params, double[][] gradients, double learningRate, double gradientScale) {
+        if (velocity == null)
+            velocity = Optimizer.zerosLike(params);
+        for (int k = 0; k < params.length; k++) {
+            double[] p = params[k];
+            double[] g = gradients[k];
+            double[] v = velocity[k];
+            for (int i = 0; i < p.length; i++) {
+                v[i] = beta * v[i] + g[i] * gradientScale;
+                p[i] -= learningRate * v[i];
+            }
+        }
+    }
+}
+
+final class Adam implements Optimizer {
+    private final double beta1;
+    private final double beta2;
+    private final double epsilon;
+    private double[][] m;
+    private double[][] v;
+    private int t;
+
+    Adam(double beta1, double beta2, double epsilon) {
+        this.beta1 = beta1;
+        this.beta2 = beta2;
+        this.epsilon = epsilon;
+    }
+
+    @Override
+    public void step(double[][] params, double[][] gradients, double learningRate, double gradientScale) {
+        if (m == null) {
+            m = Optimizer.zerosLike(params);
+            v = Optimizer.zerosLike(params);
+        }
+        t++;
+        double correction1 = 1 - Math.pow(beta1, t);
+        double correction2 = 1 - Math.pow(beta2, t);
+        for (int k = 0; k < params.length; k++) {
+            double[] p = params[k];
+            double[] g = gradients[k];
+            double[] mk = m[k];
+            double[] vk = v[k];
+            for (int i = 0; i < p.length; i++) {
+                double grad = g[i] * gradientScale;
+                mk[i] = beta1 * mk[i] + (1 - beta1) * grad;
+                vk[i] = beta2 * vk[i] + (1 - beta2) * grad * grad;
+                p[i] -= learningRate * (mk[i] / correction1) / (Math.sqrt(vk[i] / correction2) + epsilon);
+            }
+        }
+    }
+}
+
+final class RmsProp implements Optimizer {
+    private final double decay;
+    private final double epsilon;
+    private double[][] meanSquare;
+
+    RmsProp(double decay, double epsilon) {
+        this.decay = decay;
+        this.epsilon = epsilon;
+    }
+
+    @Override
+    public void step(double[][] params, double[][] gradients, double learningRate, double gradientScale) {
+        if (meanSquare == null)
+            meanSquare = Optimizer.zerosLike(params);
+        for (int k = 0; k < params.length; k++) {
+            double[] p = params[k];
+            double[] g = gradients[k];
+            double[] s = meanSquare[k];
+            for (int i = 0; i < p.length; i++) {
+                double grad = g[i] * gradientScale;
+                s[i] = decay * s[i] + (1 - decay) * grad * grad;
+                p[i] -= learningRate * grad / (Math.sqrt(s[i]) + epsilon);
+            }
+        }
+    }
+}
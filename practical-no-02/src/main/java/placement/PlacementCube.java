@@ -0,0 +1,618 @@
+package placement;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+
+// Placed student counts grouped by year and a set of dimension columns (branch,
+// company, ...) of a CSV with a header row. Dimension values are dictionary
+// encoded and every distinct (year, codes...) combination is one cell, stored
+// column wise in primitive arrays. The cube is filled in one pass over the bytes
+// and slice or rollup queries only walk the cells, never the rows.
+final class PlacementCube {
+    static final int ANY = -1;
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+    // Default dimensions are picked from the start of the file, dropping columns
+    // with more distinct values than this there (ids, names, free text)
+    private static final long SAMPLE_SIZE = 4L * 1024 * 1024;
+    static final int MAX_DEFAULT_VALUES = 1000;
+
+    private final String[] dimensions;
+    private final int yearColumn;
+    // Dimension index of each CSV column, or -1 for columns that are not kept
+    private final int[] dimensionOfColumn;
+    private final ValueDictionary[] dictionaries;
+
+    // Cell c has year cellYears[c], code cellCodes[d][c] for dimension d and count cellCounts[c]
+    private int[] cellYears = new int[64];
+    private int[][] cellCodes;
+    private int[] cellCounts = new int[64];
+    private int cells;
+    private int minYear = CsvYearScanner.MAX_YEAR;
+    private int maxYear = 0;
+    private int[] table = new int[128];
+
+    // Per line state, carried across window boundaries
+    private boolean skipLine;
+    private int field;
+    private int year;
+    private int digits;
+    private boolean valid = true;
+    private boolean spaceAfterDigits;
+    private byte[] line = new byte[256];
+    private int lineLength;
+    private final int[] valueStart;
+    private final int[] valueEnd;
+    private final int[] key;
+
+    // A last line without its newline yet is counted in queries, but rescanned by
+    // the next ingest. Its values may be cut short, so they are only looked up in
+    // the dictionaries, never added; an unknown value is -1 and matches only ANY.
+    private int pendingYear = -1;
+    private final int[] pendingCodes;
+
+    private long rows;
+    private long lineEnd;
+    private String lastSummary = "";
+
+    private PlacementCube(String[] dimensions, int yearColumn, int[] dimensionOfColumn) {
+        this.dimensions = dimensions;
+        this.yearColumn = yearColumn;
+        this.dimensionOfColumn = dimensionOfColumn;
+        dictionaries = new ValueDictionary[dimensions.length];
+        cellCodes = new int[dimensions.length][64];
+        for (int d = 0; d < dimensions.length; d++) {
+            dictionaries[d] = new ValueDictionary();
+        }
+        valueStart = new int[dimensions.length];
+        valueEnd = new int[dimensions.length];
+        key = new int[dimensions.length];
+        pendingCodes = new int[dimensions.length];
+    }
+
+    // Builds an empty cube for a CSV header line. The year is the column named
+    // 'Year', else the second column. Without explicit names every column except
+    // the first (the student) and the year becomes a dimension. Returns null when
+    // the file has no dimension columns.
+    static PlacementCube forHeader(String header, String... names) {
+        String[] columns = header.split(",", -1);
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = unquote(columns[i].trim());
+        }
+
+        int yearColumn = 1;
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i].equalsIgnoreCase("year")) {
+                yearColumn = i;
+                break;
+            }
+        }
+
+        int[] dimensionOfColumn = new int[columns.length];
+        Arrays.fill(dimensionOfColumn, -1);
+        String[] dimensions = new String[columns.length];
+        int count = 0;
+        for (int i = 0; i < columns.length; i++) {
+            boolean wanted;
+            if (names.length == 0) {
+                wanted = i != 0 && i != yearColumn;
+            } else {
+                wanted = false;
+                for (String name : names) {
+                    wanted |= i != yearColumn && columns[i].equalsIgnoreCase(name.trim());
+                }
+            }
+            if (wanted) {
+                dimensionOfColumn[i] = count;
+                dimensions[count++] = columns[i];
+            }
+        }
+        if (count == 0)
+            return null;
+        return new PlacementCube(Arrays.copyOf(dimensions, count), yearColumn, dimensionOfColumn);
+    }
+
+    // Builds an empty cube for a CSV file with the given header line. Without
+    // explicit names the dimensions are the columns forHeader would pick that have
+    // at most MAX_DEFAULT_VALUES distinct values in the first SAMPLE_SIZE bytes.
+    static PlacementCube forFile(FileChannel channel, String header, String... names) throws IOException {
+        PlacementCube sample = forHeader(header, names);
+        if (sample == null || names.length > 0)
+            return sample;
+        sample.ingest(channel, 0, Math.min(channel.size(), SAMPLE_SIZE), true, 1);
+        List<String> kept = new ArrayList<>();
+        int fewest = 0;
+        for (int d = 0; d < sample.dimensions.length; d++) {
+            if (sample.valueCount(d) <= MAX_DEFAULT_VALUES)
+                kept.add(sample.dimensions[d]);
+            if (sample.valueCount(d) < sample.valueCount(fewest))
+                fewest = d;
+        }
+        if (kept.isEmpty()) {
+            // CsvYearScanner reads the year from the second column only
+            if (sample.yearColumn == 1)
+                return null;
+            kept.add(sample.dimensions[fewest]);
+        }
+        return forHeader(header, kept.toArray(new String[0]));
+    }
+
+    // Adds the lines in [from, to) of the file. Only complete lines become cells;
+    // the returned offset is where the unterminated last line, if any, starts.
+    // Large ranges are split at line boundaries into up to threads segments, each
+    // filling a cube of its own; the unterminated tail is scanned last, by this cube.
+    long ingest(FileChannel channel, long from, long to, boolean skipHeader, int threads) throws IOException {
+        long start = System.nanoTime();
+        long rowsBefore = rows;
+        long complete = from;
+        if (threads > 1 && to - from >= 2 * CsvYearScanner.MIN_SEGMENT_SIZE)
+            complete = lineStartBefore(channel, from, to);
+        int segments = (int) Math.max(1, Math.min(threads, (complete - from) / CsvYearScanner.MIN_SEGMENT_SIZE));
+        if (segments > 1) {
+            ingestSegments(channel, from, complete, skipHeader, segments);
+            scan(channel, complete, to, false);
+        } else {
+            scan(channel, from, to, skipHeader);
+        }
+
+        lastSummary = String.format("Loaded %d rows into %d cells (%s) in %.1f ms", rows - rowsBefore, cells,
+                String.join(" x ", dimensions), (System.nanoTime() - start) / 1e6);
+        return lineEnd;
+    }
+
+    private void ingestSegments(FileChannel channel, long from, long to, boolean skipHeader, int segments)
+            throws IOException {
+        long[] bounds = new long[segments + 1];
+        bounds[0] = from;
+        for (int k = 1; k < segments; k++) {
+            bounds[k] = Math.max(bounds[k - 1],
+                    CsvYearScanner.lineStartAtOrAfter(channel, from + (to - from) * k / segments, to));
+        }
+        bounds[segments] = to;
+
+        ExecutorService pool = Executors.newFixedThreadPool(segments);
+        try {
+            List<Future<PlacementCube>> parts = new ArrayList<>();
+            for (int k = 0; k < segments; k++) {
+                final long segmentStart = bounds[k];
+                final long segmentEnd = bounds[k + 1];
+                final boolean first = k == 0;
+                parts.add(pool.submit(() -> {
+                    PlacementCube part = new PlacementCube(dimensions, yearColumn, dimensionOfColumn);
+                    part.scan(channel, segmentStart, segmentEnd, first && skipHeader);
+                    return part;
+                }));
+            }
+            // Merged in file order, so every value gets the code a single threaded scan gives it
+            for (Future<PlacementCube> part : parts) {
+                merge(part.get());
+            }
+            lineEnd = to;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("CSV ingest interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw new IOException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Adds the cells of a cube over the same columns, re-encoding its codes
+    private void merge(PlacementCube part) {
+        int[][] codeOf = new int[dimensions.length][];
+        for (int d = 0; d < dimensions.length; d++) {
+            codeOf[d] = new int[part.dictionaries[d].size()];
+            for (int code = 0; code < codeOf[d].length; code++) {
+                byte[] value = part.dictionaries[d].bytes(code);
+                codeOf[d][code] = dictionaries[d].code(value, 0, value.length);
+            }
+        }
+        int[] codes = new int[dimensions.length];
+        for (int cell = 0; cell < part.cells; cell++) {
+            for (int d = 0; d < dimensions.length; d++) {
+                codes[d] = codeOf[d][part.cellCodes[d][cell]];
+            }
+            restoreCell(part.cellYears[cell], codes, part.cellCounts[cell]);
+        }
+    }
+
+    private void scan(FileChannel channel, long from, long to, boolean skipHeader) throws IOException {
+        resetLine();
+        skipLine = skipHeader;
+        lineEnd = from;
+        pendingYear = -1;
+
+        long position = from;
+        while (position < to) {
+            int size = (int) Math.min(WINDOW_SIZE, to - position);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+            int lastNewline = scanWindow(window, size);
+            if (lastNewline >= 0)
+                lineEnd = position + lastNewline + 1;
+            position += size;
+        }
+        // Only once the year is complete, as it may stop mid year while being written
+        boolean yearComplete = digits == 4 || spaceAfterDigits || field > yearColumn;
+        if (!skipLine && field >= yearColumn && valid && digits > 0 && yearComplete) {
+            encodeLine(false);
+            pendingYear = year;
+            System.arraycopy(key, 0, pendingCodes, 0, key.length);
+        }
+        resetLine();
+    }
+
+    // Offset just past the last newline in [from, to), or from if there is none
+    private static long lineStartBefore(FileChannel channel, long from, long to) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long end = to;
+        while (end > from) {
+            int n = (int) Math.min(buffer.capacity(), end - from);
+            buffer.clear().limit(n);
+            while (buffer.hasRemaining() && channel.read(buffer, end - n + buffer.position()) > 0) {
+            }
+            for (int i = buffer.position() - 1; i >= 0; i--) {
+                if (buffer.get(i) == '\n')
+                    return end - n + i + 1;
+            }
+            end -= n;
+        }
+        return from;
+    }
+
+    private int scanWindow(MappedByteBuffer window, int size) {
+        // Work on locals inside the hot loop and write the state back afterwards
+        boolean skipLine = this.skipLine;
+        int field = this.field;
+        int year = this.year;
+        int digits = this.digits;
+        boolean valid = this.valid;
+        boolean spaceAfterDigits = this.spaceAfterDigits;
+        byte[] line = this.line;
+        int lineLength = this.lineLength;
+        int[] dimensionOfColumn = this.dimensionOfColumn;
+        int yearColumn = this.yearColumn;
+        int dimension = dimensionAt(field);
+        int lastNewline = -1;
+
+        for (int i = 0; i < size; i++) {
+            byte b = window.get(i);
+            if (b == '\n') {
+                if (!skipLine && field >= yearColumn && valid && digits > 0)
+                    addRow(year);
+                skipLine = false;
+                field = 0;
+                year = 0;
+                digits = 0;
+                valid = true;
+                spaceAfterDigits = false;
+                lineLength = 0;
+                Arrays.fill(valueStart, 0);
+                Arrays.fill(valueEnd, 0);
+                dimension = dimensionAt(0);
+                lastNewline = i;
+            } else if (skipLine) {
+                // header line
+            } else if (b == ',') {
+                field++;
+                dimension = field < dimensionOfColumn.length ? dimensionOfColumn[field] : -1;
+                if (dimension >= 0) {
+                    valueStart[dimension] = lineLength;
+                    valueEnd[dimension] = lineLength;
+                }
+            } else if (field == yearColumn) {
+                if (b >= '0' && b <= '9') {
+                    if (spaceAfterDigits || digits == 4) {
+                        valid = false;
+                    } else {
+                        year = year * 10 + (b - '0');
+                        digits++;
+                    }
+                } else if (b == ' ' || b == '\t' || b == '\r') {
+                    if (digits > 0)
+                        spaceAfterDigits = true;
+                } else {
+                    valid = false;
+                }
+            } else if (dimension >= 0) {
+                if (lineLength == line.length) {
+                    line = Arrays.copyOf(line, lineLength * 2);
+                    this.line = line;
+                }
+                line[lineLength++] = b;
+                valueEnd[dimension] = lineLength;
+            }
+        }
+
+        this.skipLine = skipLine;
+        this.field = field;
+        this.year = year;
+        this.digits = digits;
+        this.valid = valid;
+        this.spaceAfterDigits = spaceAfterDigits;
+        this.lineLength = lineLength;
+        return lastNewline;
+    }
+
+    private int dimensionAt(int column) {
+        return column < dimensionOfColumn.length ? dimensionOfColumn[column] : -1;
+    }
+
+    private void resetLine() {
+        skipLine = false;
+        field = 0;
+        year = 0;
+        digits = 0;
+        valid = true;
+        spaceAfterDigits = false;
+        lineLength = 0;
+        Arrays.fill(valueStart, 0);
+        Arrays.fill(valueEnd, 0);
+    }
+
+    private void addRow(int year) {
+        encodeLine(true);
+        // cellFor may grow cellCounts, so look the cell up first
+        int cell = cellFor(year, key);
+        cellCounts[cell] = Math.incrementExact(cellCounts[cell]);
+        rows++;
+    }
+
+    // Fills key with the codes of the line's values; without add, unknown values get -1
+    private void encodeLine(boolean add) {
+        for (int d = 0; d < dimensions.length; d++) {
+            int from = valueStart[d];
+            int to = valueEnd[d];
+            while (from < to && isBlank(line[from]))
+                from++;
+            while (to > from && isBlank(line[to - 1]))
+                to--;
+            if (to - from >= 2 && line[from] == '"' && line[to - 1] == '"') {
+                from++;
+                to--;
+            }
+            key[d] = add ? dictionaries[d].code(line, from, to) : dictionaries[d].find(line, from, to);
+        }
+    }
+
+    private int cellFor(int year, int[] codes) {
+        int hash = year;
+        for (int code : codes) {
+            hash = hash * 31 + code;
+        }
+        hash = mix(hash);
+        int mask = table.length - 1;
+        for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0) {
+                table[slot] = cells + 1;
+                return addCell(year, codes);
+            }
+            int cell = entry - 1;
+            if (cellYears[cell] == year && sameCodes(cell, codes))
+                return cell;
+        }
+    }
+
+    private boolean sameCodes(int cell, int[] codes) {
+        for (int d = 0; d < codes.length; d++) {
+            if (cellCodes[d][cell] != codes[d])
+                return false;
+        }
+        return true;
+    }
+
+    private int addCell(int year, int[] codes) {
+        if (cells == cellYears.length) {
+            int capacity = cells * 2;
+            cellYears = Arrays.copyOf(cellYears, capacity);
+            cellCounts = Arrays.copyOf(cellCounts, capacity);
+            for (int d = 0; d < codes.length; d++) {
+                cellCodes[d] = Arrays.copyOf(cellCodes[d], capacity);
+            }
+        }
+        int cell = cells++;
+        cellYears[cell] = year;
+        minYear = Math.min(minYear, year);
+        maxYear = Math.max(maxYear, year);
+        for (int d = 0; d < codes.length; d++) {
+            cellCodes[d][cell] = codes[d];
+        }
+        if (cells * 2 > table.length)
+            rehash();
+        return cell;
+    }
+
+    private void rehash() {
+        table = new int[table.length * 2];
+        int mask = table.length - 1;
+        for (int cell = 0; cell < cells; cell++) {
+            int hash = cellYears[cell];
+            for (int d = 0; d < dimensions.length; d++) {
+                hash = hash * 31 + cellCodes[d][cell];
+            }
+            hash = mix(hash);
+            int slot = hash & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = cell + 1;
+        }
+    }
+
+    // Filter that matches every row: one ANY per dimension
+    int[] allFilter() {
+        int[] filter = new int[dimensions.length];
+        Arrays.fill(filter, ANY);
+        return filter;
+    }
+
+    // Counts per year of the rows whose codes match the filter (ANY matches all)
+    YearHistogram histogram(int[] filter) {
+        long[] totals = new long[cells == 0 ? 0 : maxYear - minYear + 1];
+        int[] active = activeDimensions(filter);
+        for (int cell = 0; cell < cells; cell++) {
+            if (matches(cell, filter, active))
+                totals[cellYears[cell] - minYear] += cellCounts[cell];
+        }
+        YearHistogram histogram = new YearHistogram();
+        for (int i = 0; i < totals.length; i++) {
+            histogram.add(minYear + i, Math.toIntExact(totals[i]));
+        }
+        if (pendingYear >= 0 && matches(pendingCodes, filter))
+            histogram.add(pendingYear);
+        return histogram;
+    }
+
+    // Rows matching the filter, summed per value of one dimension
+    long[] rollup(int dimension, int[] filter) {
+        long[] totals = new long[dictionaries[dimension].size()];
+        int[] codes = cellCodes[dimension];
+        int[] active = activeDimensions(filter);
+        for (int cell = 0; cell < cells; cell++) {
+            if (matches(cell, filter, active))
+                totals[codes[cell]] += cellCounts[cell];
+        }
+        if (pendingYear >= 0 && pendingCodes[dimension] >= 0 && matches(pendingCodes, filter))
+            totals[pendingCodes[dimension]]++;
+        return totals;
+    }
+
+    // Dimensions the filter actually restricts
+    private int[] activeDimensions(int[] filter) {
+        if (filter == null)
+            return new int[0];
+        int[] active = new int[filter.length];
+        int n = 0;
+        for (int d = 0; d < filter.length; d++) {
+            if (filter[d] != ANY)
+                active[n++] = d;
+        }
+        return Arrays.copyOf(active, n);
+    }
+
+    private boolean matches(int cell, int[] filter, int[] active) {
+        for (int d : active) {
+            if (cellCodes[d][cell] != filter[d])
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean matches(int[] codes, int[] filter) {
+        if (filter == null)
+            return true;
+        for (int d = 0; d < filter.length; d++) {
+            if (filter[d] != ANY && codes[d] != filter[d])
+                return false;
+        }
+        return true;
+    }
+
+    String[] dimensions() {
+        return dimensions.clone();
+    }
+
+    int dimension(String name) {
+        for (int d = 0; d < dimensions.length; d++) {
+            if (dimensions[d].equalsIgnoreCase(name))
+                return d;
+        }
+        return -1;
+    }
+
+    // Values of a dimension in first seen order; the index is the code
+    String[] values(int dimension) {
+        ValueDictionary dictionary = dictionaries[dimension];
+        String[] values = new String[dictionary.size()];
+        for (int code = 0; code < values.length; code++) {
+            values[code] = dictionary.value(code);
+        }
+        return values;
+    }
+
+    int code(int dimension, String value) {
+        return dictionaries[dimension].code(value);
+    }
+
+    int cells() {
+        return cells;
+    }
+
+    long rows() {
+        return rows;
+    }
+
+    String lastSummary() {
+        return lastSummary;
+    }
+
+    // Raw cell access for CsvSnapshot
+
+    int valueCount(int dimension) {
+        return dictionaries[dimension].size();
+    }
+
+    byte[] valueBytes(int dimension, int code) {
+        return dictionaries[dimension].bytes(code);
+    }
+
+    int cellYear(int cell) {
+        return cellYears[cell];
+    }
+
+    int cellCode(int dimension, int cell) {
+        return cellCodes[dimension][cell];
+    }
+
+    int cellCount(int cell) {
+        return cellCounts[cell];
+    }
+
+    int pendingYear() {
+        return pendingYear;
+    }
+
+    int[] pendingCodes() {
+        return pendingCodes.clone();
+    }
+
+    // Values must be restored in code order before the cells that use them
+    void restoreValue(int dimension, byte[] value) {
+        dictionaries[dimension].code(value, 0, value.length);
+    }
+
+    void restoreCell(int year, int[] codes, int count) {
+        int cell = cellFor(year, codes);
+        cellCounts[cell] = Math.addExact(cellCounts[cell], count);
+        rows += count;
+    }
+
+    void restorePending(int year, int[] codes) {
+        pendingYear = year;
+        System.arraycopy(codes, 0, pendingCodes, 0, codes.length);
+    }
+
+    // Spreads nearby keys apart so linear probing does not form long runs
+    private static int mix(int hash) {
+        hash *= 0x9e3779b9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    private static String unquote(String value) {
+        return value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")
+                ? value.substring(1, value.length() - 1)
+                : value;
+    }
+}
@@ -0,0 +1,79 @@
+package placement;
+
+import java.io.*;
+import java.util.Locale;
+
+// Writes a synthetic placement CSV for trying the tools at any scale:
+//
+//   java -cp target/classes placement.PlacementDataGenerator [--rows N] [--first-year YEAR]
+//       [--years N] [--distribution uniform|rising|falling|peaked] [--columns 0-3] [--skew S]
+//       [--seed S] out.csv
+//
+// --rows accepts forms such as 5000000 or 2e9 (default 1000). Rows fall into --years
+// consecutive years from --first-year (default 25 from 2000), spread as --distribution
+// says (default rising). --columns adds Branch, Company and Package in that order, and
+// --skew is the Zipf exponent of their values, 0 for uniform. The same seed always
+// writes the same bytes.
+public class PlacementDataGenerator {
+    public static void main(String[] args) throws IOException {
+        SyntheticPlacements.Generator generator = SyntheticPlacements.generator();
+        File out = null;
+        int firstYear = generator.firstYear;
+        int years = generator.years;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--rows":
+                        generator.rows(parseCount(args[++i]));
+                        break;
+                    case "--first-year":
+                        firstYear = Integer.parseInt(args[++i]);
+                        break;
+                    case "--years":
+                        years = Integer.parseInt(args[++i]);
+                        break;
+                    case "--distribution":
+                        generator.distribution(
+                                SyntheticPlacements.Distribution.valueOf(args[++i].toUpperCase(Locale.ROOT)));
+                        break;
+                    case "--columns":
+                        generator.columns(Integer.parseInt(args[++i]));
+                        break;
+                    case "--skew":
+                        generator.skew(Double.parseDouble(args[++i]));
+                        break;
+                    case "--seed":
+                        generator.seed(Long.parseLong(args[++i]));
+                        break;
+                    default:
+                        if (out != null)
+                            throw new IllegalArgumentException(args[i]);
+                        out = new File(args[i]);
+                }
+            }
+            generator.years(firstYear, years);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            out = null;
+        }
+        if (out == null) {
+            System.err.println("Usage: java placement.PlacementDataGenerator [--rows N] [--first-year YEAR]"
+                    + " [--years N] [--distribution uniform|rising|falling|peaked] [--columns 0-3] [--skew S]"
+                    + " [--seed S] out.csv");
+            System.exit(2);
+        }
+
+        long start = System.nanoTime();
+        long bytes = generator.write(out);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf(Locale.ROOT, "Wrote %d rows (%.1f MB) to %s in %.1f s, %.1f MB/s%n", generator.rows,
+                bytes / 1e6, out, seconds, bytes / 1e6 / seconds);
+    }
+
+    // Whole numbers, also in exponent form such as 2e9
+    static long parseCount(String text) {
+        double value = Double.parseDouble(text);
+        if (value < 0 || value != Math.rint(value) || value > Long.MAX_VALUE)
+            throw new IllegalArgumentException("not a row count: " + text);
+        return (long) value;
+    }
+}
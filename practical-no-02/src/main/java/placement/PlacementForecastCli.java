@@ -0,0 +1,232 @@
+package placement;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+// Headless batch forecasts: loads every CSV given on the command line in parallel,
+// trains (or reuses the saved <csv>.model) and writes one line per dataset and year.
+//
+//   java -cp target/classes placement.PlacementForecastCli [--from YEAR] [--to YEAR] [--threads N]
+//       [--out FILE] [--save-models] [--where COLUMN=VALUE ...] [--ensemble N] [--seed S]
+//       [--tune] [--metrics FILE] [--compact float32|int8] data1.csv data2.csv ...
+//
+// Without --from/--to each dataset is forecast for the 5 years after its last year.
+// --where keeps only the rows whose column holds the value; such slices always train
+// their own model and never read or write <csv>.model. Models are ensembles of
+// --ensemble networks (default 8); low and high bound the spread of their forecasts.
+// --tune picks the network size, learning rate and epochs per dataset with a
+// HyperparameterSearch instead of using the defaults, and prints its report to stderr.
+// --metrics turns on Metrics and writes them to FILE at the end, as JSON when the
+// name ends in .json and as a text table otherwise.
+// --compact forecasts with float32 or int8 copies of the networks (CompactNetwork)
+// and prints to stderr how far their outputs and forecasts drift from the doubles.
+public class PlacementForecastCli {
+    private static final int DEFAULT_HORIZON = 5;
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+
+        Integer from = null;
+        Integer to = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String out = null;
+        boolean saveModels = false;
+        Map<String, String> where = new LinkedHashMap<>();
+        int ensemble = ForecastEngine.DEFAULT_ENSEMBLE_SIZE;
+        long seed = ForecastEngine.DEFAULT_SEED;
+        boolean tune = false;
+        String metrics = null;
+        CompactNetwork.Precision compact = null;
+        List<File> files = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--from":
+                        from = Integer.parseInt(args[++i]);
+                        break;
+                    case "--to":
+                        to = Integer.parseInt(args[++i]);
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    case "--out":
+                        out = args[++i];
+                        break;
+                    case "--save-models":
+                        saveModels = true;
+                        break;
+                    case "--where":
+                        String[] condition = args[++i].split("=", 2);
+                        if (condition.length != 2)
+                            throw new IllegalArgumentException(args[i]);
+                        where.put(condition[0].trim(), condition[1].trim());
+                        break;
+                    case "--ensemble":
+                        ensemble = Integer.parseInt(args[++i]);
+                        break;
+                    case "--seed":
+                        seed = Long.parseLong(args[++i]);
+                        break;
+                    case "--tune":
+                        tune = true;
+                        break;
+                    case "--metrics":
+                        metrics = args[++i];
+                        break;
+                    case "--compact":
+                        compact = CompactNetwork.Precision.valueOf(args[++i].toUpperCase(Locale.ROOT));
+                        break;
+                    default:
+                        files.add(new File(args[i]));
+                }
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            files.clear();
+        }
+        if (files.isEmpty() || threads < 1 || ensemble < 1) {
+            System.err.println("Usage: java placement.PlacementForecastCli [--from YEAR] [--to YEAR] [--threads N]"
+                    + " [--out FILE] [--save-models] [--where COLUMN=VALUE ...] [--ensemble N] [--seed S]"
+                    + " [--tune] [--metrics FILE] [--compact float32|int8] data.csv ...");
+            System.exit(2);
+        }
+        // Read once when Metrics is first used, which is after this point
+        if (metrics != null)
+            System.setProperty("placement.metrics", "true");
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, files.size()));
+        List<Future<List<String>>> results = new ArrayList<>();
+        for (File file : files) {
+            final Integer fromYear = from;
+            final Integer toYear = to;
+            final boolean save = saveModels;
+            final int members = ensemble;
+            final long ensembleSeed = seed;
+            final boolean search = tune;
+            final CompactNetwork.Precision precision = compact;
+            results.add(pool.submit(() -> forecast(file, fromYear, toYear, save, where, members, ensembleSeed,
+                    search, precision)));
+        }
+        pool.shutdown();
+
+        boolean failed = false;
+        try (PrintStream output = out != null ? new PrintStream(new FileOutputStream(out)) : System.out) {
+            output.println("file,year,predicted,change_percent,low,high");
+            for (int i = 0; i < files.size(); i++) {
+                try {
+                    for (String line : results.get(i).get()) {
+                        output.println(line);
+                    }
+                } catch (ExecutionException e) {
+                    failed = true;
+                    System.err.println(files.get(i) + ": " + e.getCause());
+                }
+            }
+        }
+        if (metrics != null)
+            Metrics.dump(new File(metrics));
+        System.exit(failed ? 1 : 0);
+    }
+
+    private static List<String> forecast(File file, Integer from, Integer to, boolean saveModel,
+            Map<String, String> where, int members, long seed, boolean tune, CompactNetwork.Precision compact)
+            throws IOException, InterruptedException {
+        YearHistogram histogram = where.isEmpty() ? ForecastEngine.load(file) : loadSlice(file, where);
+        int[] yearValues = histogram.years();
+        int[] placedStudents = histogram.counts();
+        if (yearValues.length == 0)
+            throw new IOException("no placement rows");
+
+        TrainedModel model = null;
+        File modelFile = ForecastEngine.modelFileFor(file);
+        if (tune) {
+            HyperparameterSearch.Result result = new HyperparameterSearch().seed(seed).ensembleSize(members)
+                    .run(yearValues, placedStudents, null);
+            System.err.print(file + ": " + result.report());
+            model = result.model;
+            if (saveModel && where.isEmpty())
+                ModelFile.save(model, modelFile.toPath());
+        } else if (where.isEmpty() && modelFile.isFile()) {
+            model = ModelFile.load(modelFile.toPath());
+        } else {
+            model = ForecastEngine.trainEnsemble(yearValues, placedStudents, ForecastEngine.defaultOptions(), members,
+                    seed, null);
+            if (saveModel && where.isEmpty())
+                ModelFile.save(model, modelFile.toPath());
+        }
+
+        int lastYear = yearValues[yearValues.length - 1];
+        int lastCount = placedStudents[placedStudents.length - 1];
+        int first = from != null ? from : lastYear + 1;
+        int last = to != null ? to : first + DEFAULT_HORIZON - 1;
+        if ((long) last - lastYear > ForecastEngine.MAX_HORIZON)
+            throw new IOException("--to " + last + " is more than " + ForecastEngine.MAX_HORIZON + " years past "
+                    + lastYear);
+
+        Forecast forecast = ForecastEngine.forecast(model, yearValues, placedStudents, last);
+        if (compact != null) {
+            Forecast reference = forecast;
+            forecast = ForecastEngine.forecast(model, compact, yearValues, placedStudents, last);
+            System.err.println(file + ": " + driftReport(model, compact, reference, forecast, yearValues.length,
+                    last - lastYear));
+        }
+        List<String> lines = new ArrayList<>();
+        for (int year = first; year <= last; year++) {
+            int count;
+            int low;
+            int high;
+            Double change = null;
+            if (year <= lastYear) {
+                count = histogram.get(year);
+                low = count;
+                high = count;
+            } else {
+                count = forecast.count(year);
+                low = forecast.low(year);
+                high = forecast.high(year);
+                change = ForecastEngine.changePercent(count, lastCount);
+            }
+            lines.add(file.getPath() + "," + year + "," + count + ","
+                    + (change != null ? String.format(Locale.ROOT, "%.1f", change) : "") + "," + low + "," + high);
+        }
+        return lines;
+    }
+
+    // Output drift of the worst member on sampled inputs, and the largest change
+    // in any forecast count
+    private static String driftReport(TrainedModel model, CompactNetwork.Precision precision, Forecast reference,
+            Forecast compact, int years, int horizon) {
+        double[][] inputs = CompactNetwork.sampleInputs(years, Math.max(0, horizon), 10_000, 1);
+        CompactNetwork.Drift worst = null;
+        for (NeuralNetwork member : model.members) {
+            CompactNetwork.Drift drift = CompactNetwork.of(member, precision).drift(member, inputs);
+            if (worst == null || drift.max > worst.max)
+                worst = drift;
+        }
+        int countDrift = 0;
+        for (int year = reference.firstYear; year < reference.firstYear + horizon; year++) {
+            countDrift = Math.max(countDrift, Math.abs(reference.count(year) - compact.count(year)));
+        }
+        return worst + String.format(Locale.ROOT, " (x%.0f placements), forecast counts differ by at most %d",
+                model.maxCount, countDrift);
+    }
+
+    private static YearHistogram loadSlice(File file, Map<String, String> where) throws IOException {
+        String[] columns = where.keySet().toArray(new String[0]);
+        IncrementalCsvLoader loader = new IncrementalCsvLoader(file, columns);
+        loader.load();
+        String[] dimensions = loader.dimensions();
+        String[] selection = new String[dimensions.length];
+        for (String column : columns) {
+            int d = 0;
+            while (d < dimensions.length && !dimensions[d].equalsIgnoreCase(column))
+                d++;
+            if (d == dimensions.length)
+                throw new IOException("no column " + column);
+            selection[d] = where.get(column);
+        }
+        return loader.histogram(selection);
+    }
+}
@@ -0,0 +1,390 @@
+package placement;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+// Serves histograms and forecasts of the loaded CSVs as JSON over HTTP, using the
+// JDK's built-in server:
+//
+//   java -cp target/classes placement.PlacementForecastServer [--port 8080] [--threads N]
+//       [--batch N] [--compact float32|int8] [--watch] [--metrics] data1.csv data2.csv ...
+//
+//   GET /datasets                                  name, years, dimensions and model of each file
+//   GET /histogram?dataset=NAME[&COLUMN=VALUE ...] counts per year, optionally of a slice
+//   GET /forecast?dataset=NAME&year=Y[&COLUMN=VALUE ...]
+//   GET /metrics                                   Metrics.toJson()
+//
+// dataset may be left out while only one file is loaded, and year may be at most
+// ForecastEngine.MAX_HORIZON years past the last one. Each file uses its saved
+// <csv>.model, or an ensemble trained with the defaults at startup that is not
+// saved. A slice gets its own ensemble, trained in the background after the first
+// request for it; until it is ready forecasts of the slice answer 202 with a
+// Retry-After header. The most recently used slice models are kept in memory
+// while their rows stay the same. Forecasts run through a ForecastBatcher, so
+// concurrent requests share one batched pass through the compact networks.
+// Requests are handled on virtual threads when the JVM has them (Java 21 and
+// later) and on a pool of --threads platform threads otherwise. --watch reloads
+// appended rows, and --metrics turns on Metrics for /metrics.
+public class PlacementForecastServer {
+    private static final long FORECAST_TIMEOUT_SECONDS = 5;
+    // Slice models kept; the least recently used one goes first
+    private static final int MAX_SLICE_MODELS = 256;
+    private static final int SLICE_RETRY_SECONDS = 2;
+
+    private final Workspace workspace;
+    private final ForecastBatcher batcher;
+    // Keyed by dataset, selection and fingerprint, so appended rows retrain. A
+    // failed training stays too, as the same rows would fail the same way.
+    private final Map<String, CompletableFuture<TrainedModel>> sliceModels =
+            new LinkedHashMap<String, CompletableFuture<TrainedModel>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<TrainedModel>> eldest) {
+                    return size() > MAX_SLICE_MODELS;
+                }
+            };
+    // One slice at a time, as the members of each already spread over every core
+    private final ExecutorService sliceTraining = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "slice-training");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    PlacementForecastServer(Workspace workspace, ForecastBatcher batcher) {
+        this.workspace = workspace;
+        this.batcher = batcher;
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+
+        int port = 8080;
+        int threads = 64;
+        int batch = 256;
+        CompactNetwork.Precision compact = CompactNetwork.Precision.FLOAT32;
+        boolean watch = false;
+        boolean metrics = false;
+        List<File> files = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--port":
+                        port = Integer.parseInt(args[++i]);
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    case "--batch":
+                        batch = Integer.parseInt(args[++i]);
+                        break;
+                    case "--compact":
+                        compact = CompactNetwork.Precision.valueOf(args[++i].toUpperCase(Locale.ROOT));
+                        break;
+                    case "--watch":
+                        watch = true;
+                        break;
+                    case "--metrics":
+                        metrics = true;
+                        break;
+                    default:
+                        files.add(new File(args[i]));
+                }
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            files.clear();
+        }
+        if (files.isEmpty() || port < 0 || threads < 1 || batch < 1) {
+            System.err.println("Usage: java placement.PlacementForecastServer [--port 8080] [--threads N]"
+                    + " [--batch N] [--compact float32|int8] [--watch] [--metrics] data.csv ...");
+            System.exit(2);
+        }
+        // Read once when Metrics is first used, which is after this point
+        if (metrics)
+            System.setProperty("placement.metrics", "true");
+
+        Workspace workspace = new Workspace();
+        for (File file : files) {
+            Dataset dataset = workspace.open(file);
+            System.out.println(file + ": " + dataset.lastSummary());
+            ChartState state = dataset.state();
+            if (!state.hasData()) {
+                System.err.println(file + ": no placement rows");
+                continue;
+            }
+            if (state.model == null) {
+                long start = System.nanoTime();
+                try {
+                    // Not saved, so a later run of the GUI or CLI still trains its own
+                    dataset.useModel(ForecastEngine.trainEnsemble(state.series.yearValues,
+                            state.series.placedStudents, ForecastEngine.defaultOptions(),
+                            ForecastEngine.DEFAULT_ENSEMBLE_SIZE, ForecastEngine.DEFAULT_SEED, null));
+                    System.out.printf("Trained %s in %.1f ms%n", dataset, (System.nanoTime() - start) / 1e6);
+                } catch (IllegalArgumentException e) {
+                    System.err.println(file + ": " + e.getMessage() + ", serving histograms only");
+                }
+            }
+            if (watch)
+                dataset.startWatching();
+        }
+
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+        PlacementForecastServer service = new PlacementForecastServer(workspace, new ForecastBatcher(compact, batch));
+        server.createContext("/datasets", exchange -> service.handle(exchange, service::datasets));
+        server.createContext("/histogram", exchange -> service.handle(exchange, service::histogram));
+        server.createContext("/forecast", exchange -> service.handle(exchange, service::forecast));
+        server.createContext("/metrics", exchange -> service.handle(exchange, query -> Metrics.toJson()));
+        server.setExecutor(requestExecutor(threads));
+        server.start();
+        System.out.println("Serving " + workspace.datasets().size() + " datasets on http://localhost:"
+                + server.getAddress().getPort() + "/");
+    }
+
+    // Virtual threads are looked up reflectively so the build still targets Java 17
+    private static ExecutorService requestExecutor(int threads) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(threads);
+        }
+    }
+
+    // Thrown by the endpoints with the status and message to send back
+    private static final class HttpError extends Exception {
+        final int status;
+        // Seconds for a Retry-After header, or 0 for none
+        final int retryAfter;
+
+        HttpError(int status, String message) {
+            this(status, message, 0);
+        }
+
+        HttpError(int status, String message, int retryAfter) {
+            super(message);
+            this.status = status;
+            this.retryAfter = retryAfter;
+        }
+    }
+
+    private interface Endpoint {
+        String respond(Map<String, String> query) throws HttpError;
+    }
+
+    private void handle(HttpExchange exchange, Endpoint endpoint) throws IOException {
+        long start = Metrics.start();
+        int status = 200;
+        String body;
+        try {
+            if (!"GET".equals(exchange.getRequestMethod()))
+                throw new HttpError(405, "only GET is supported");
+            body = endpoint.respond(parseQuery(exchange.getRequestURI().getRawQuery()));
+        } catch (HttpError e) {
+            status = e.status;
+            if (e.retryAfter > 0) {
+                exchange.getResponseHeaders().set("Retry-After", String.valueOf(e.retryAfter));
+                body = "{\"status\": " + quote(e.getMessage()) + "}\n";
+            } else {
+                body = "{\"error\": " + quote(e.getMessage()) + "}\n";
+            }
+        } catch (RuntimeException e) {
+            status = 500;
+            body = "{\"error\": " + quote(String.valueOf(e)) + "}\n";
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+        Metrics.HTTP_REQUEST.stop(start);
+    }
+
+    private static Map<String, String> parseQuery(String query) throws HttpError {
+        Map<String, String> parameters = new LinkedHashMap<>();
+        if (query == null || query.isEmpty())
+            return parameters;
+        try {
+            for (String pair : query.split("&")) {
+                if (pair.isEmpty())
+                    continue;
+                int equals = pair.indexOf('=');
+                String name = URLDecoder.decode(equals < 0 ? pair : pair.substring(0, equals), StandardCharsets.UTF_8);
+                String value = equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+                parameters.put(name, value);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new HttpError(400, "malformed query: " + e.getMessage());
+        }
+        return parameters;
+    }
+
+    private String datasets(Map<String, String> query) {
+        StringBuilder json = new StringBuilder("{\"datasets\": [");
+        List<Dataset> datasets = workspace.datasets();
+        for (int i = 0; i < datasets.size(); i++) {
+            Dataset dataset = datasets.get(i);
+            ChartState state = dataset.state();
+            ChartState.Series series = state.series;
+            json.append(i == 0 ? "\n  " : ",\n  ").append("{\"name\": ").append(quote(dataset.toString()));
+            if (state.hasData()) {
+                json.append(", \"firstYear\": ").append(series.yearValues[0]).append(", \"lastYear\": ")
+                        .append(series.lastYear());
+            }
+            long rows = 0;
+            for (int count : series.placedStudents) {
+                rows += count;
+            }
+            json.append(", \"rows\": ").append(rows).append(", \"dimensions\": [");
+            String[] dimensions = dataset.dimensions();
+            for (int d = 0; d < dimensions.length; d++) {
+                json.append(d == 0 ? "" : ", ").append(quote(dimensions[d]));
+            }
+            json.append("], \"members\": ").append(state.model != null ? state.model.members.length : 0).append('}');
+        }
+        return json.append("\n]}\n").toString();
+    }
+
+    private String histogram(Map<String, String> query) throws HttpError {
+        Dataset dataset = dataset(query);
+        YearHistogram histogram = histogram(dataset, selection(dataset, query, Set.of("dataset")));
+        StringBuilder json = new StringBuilder("{\"dataset\": ").append(quote(dataset.toString()));
+        json.append(", \"years\": ").append(Arrays.toString(histogram.years()));
+        json.append(", \"counts\": ").append(Arrays.toString(histogram.counts()));
+        return json.append("}\n").toString();
+    }
+
+    private String forecast(Map<String, String> query) throws HttpError {
+        Dataset dataset = dataset(query);
+        String yearParameter = query.get("year");
+        if (yearParameter == null)
+            throw new HttpError(400, "year is required");
+        int year;
+        try {
+            year = Integer.parseInt(yearParameter);
+        } catch (NumberFormatException e) {
+            throw new HttpError(400, "year must be a number: " + yearParameter);
+        }
+        String[] selection = selection(dataset, query, Set.of("dataset", "year"));
+        YearHistogram histogram = histogram(dataset, selection);
+        if (histogram.isEmpty())
+            throw new HttpError(404, "no placement rows match");
+
+        StringBuilder json = new StringBuilder("{\"dataset\": ").append(quote(dataset.toString()))
+                .append(", \"year\": ").append(year);
+        if (histogram.contains(year))
+            return json.append(", \"actual\": ").append(histogram.get(year)).append("}\n").toString();
+        int[] years = histogram.years();
+        int lastYear = years[years.length - 1];
+        if (year < lastYear)
+            throw new HttpError(404, "no rows for " + year + ", which is before the last year " + lastYear);
+        if ((long) year - lastYear > ForecastEngine.MAX_HORIZON)
+            throw new HttpError(400, "year must be at most " + ForecastEngine.MAX_HORIZON + " years past " + lastYear);
+
+        Forecast forecast;
+        try {
+            TrainedModel model = selection == null ? dataset.state().model : sliceModel(dataset, selection, histogram);
+            if (model == null)
+                throw new HttpError(409, "no model for " + dataset);
+            forecast = batcher.submit(model, histogram, year).get(FORECAST_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            throw new HttpError(503, "forecast timed out");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HttpError(503, "interrupted");
+        } catch (ExecutionException e) {
+            // Too few years to train a slice model
+            if (e.getCause() instanceof IllegalArgumentException)
+                throw new HttpError(409, e.getCause().getMessage());
+            throw new HttpError(500, String.valueOf(e.getCause()));
+        }
+        int lastCount = histogram.get(lastYear);
+        json.append(", \"lastYear\": ").append(lastYear).append(", \"lastCount\": ").append(lastCount)
+                .append(", \"forecast\": [");
+        for (int y = lastYear + 1; y <= year; y++) {
+            int count = forecast.count(y);
+            json.append(y == lastYear + 1 ? "" : ", ").append(String.format(Locale.ROOT,
+                    "{\"year\": %d, \"predicted\": %d, \"low\": %d, \"high\": %d, \"changePercent\": %.1f}", y,
+                    count, forecast.low(y), forecast.high(y), ForecastEngine.changePercent(count, lastCount)));
+        }
+        return json.append("]}\n").toString();
+    }
+
+    private Dataset dataset(Map<String, String> query) throws HttpError {
+        List<Dataset> datasets = workspace.datasets();
+        String name = query.get("dataset");
+        if (name == null) {
+            if (datasets.size() == 1)
+                return datasets.get(0);
+            throw new HttpError(400, "dataset is required when " + datasets.size() + " are loaded");
+        }
+        for (Dataset dataset : datasets) {
+            if (dataset.toString().equals(name))
+                return dataset;
+        }
+        throw new HttpError(404, "no dataset " + name);
+    }
+
+    // Every parameter but the reserved ones names a dimension column and its
+    // value; null when there are none
+    private static String[] selection(Dataset dataset, Map<String, String> query, Set<String> reserved)
+            throws HttpError {
+        String[] dimensions = dataset.dimensions();
+        String[] selection = null;
+        for (Map.Entry<String, String> parameter : query.entrySet()) {
+            if (reserved.contains(parameter.getKey()))
+                continue;
+            int d = Arrays.asList(dimensions).indexOf(parameter.getKey());
+            if (d < 0)
+                throw new HttpError(400, "unknown column " + parameter.getKey());
+            if (selection == null)
+                selection = new String[dimensions.length];
+            selection[d] = parameter.getValue();
+        }
+        return selection;
+    }
+
+    // The whole file is already counted in the published series
+    private static YearHistogram histogram(Dataset dataset, String[] selection) {
+        return selection == null ? dataset.state().series.histogram : dataset.histogram(selection);
+    }
+
+    // The first request for a slice starts training its model on sliceTraining;
+    // it and every request for the slice until the model is ready get a 202
+    private TrainedModel sliceModel(Dataset dataset, String[] selection, YearHistogram histogram)
+            throws HttpError, InterruptedException, ExecutionException {
+        String key = dataset.file().getAbsolutePath() + Arrays.toString(selection) + histogram.fingerprint();
+        CompletableFuture<TrainedModel> model;
+        synchronized (sliceModels) {
+            model = sliceModels.get(key);
+            if (model == null) {
+                model = CompletableFuture.supplyAsync(() -> ForecastEngine.trainEnsemble(histogram.years(),
+                        histogram.counts(), ForecastEngine.defaultOptions(), ForecastEngine.DEFAULT_ENSEMBLE_SIZE,
+                        ForecastEngine.DEFAULT_SEED, null), sliceTraining);
+                sliceModels.put(key, model);
+            }
+        }
+        if (!model.isDone())
+            throw new HttpError(202, "training a model for this slice", SLICE_RETRY_SECONDS);
+        return model.get();
+    }
+
+    private static String quote(String text) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\')
+                quoted.append('\\').append(c);
+            else if (c < 0x20)
+                quoted.append(String.format("\\u%04x", (int) c));
+            else
+                quoted.append(c);
+        }
+        return quoted.append('"').toString();
+    }
+}
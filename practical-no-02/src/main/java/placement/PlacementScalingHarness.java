@@ -0,0 +1,395 @@
+package placement;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.util.*;
+
+// Runs the whole pipeline on generated CSVs of growing size and reports time and
+// peak heap per stage, and the size at which throughput stops scaling:
+//
+//   java -Xmx4g -cp target/classes placement.PlacementScalingHarness [--sizes 1e3,1e4,...]
+//       [--first-year YEAR] [--years N] [--distribution uniform|rising|falling|peaked]
+//       [--columns 0-3] [--skew S] [--seed S] [--forecasts N] [--paints N]
+//       [--max-seconds S] [--dir DIR] [--out FILE]
+//
+// Stages per size:
+// - generate writes the CSV with SyntheticPlacements.
+// - load parses it into a Workspace.
+// - aggregate reads the whole histogram and every one-column slice.
+// - train fits the default ensemble.
+// - predict runs --forecasts rollouts 10 years ahead.
+// - render paints --paints charts with the layer rebuilt each time.
+//
+// The sweep stops after a size that takes longer than --max-seconds (default 600),
+// or at the first stage that runs out of heap or disk. Files go to --dir (default
+// a temporary directory) and are deleted after each size. --out also writes the
+// measurements as CSV. Data options are those of PlacementDataGenerator, except
+// that --columns defaults to 2 so aggregate has slices to read.
+public class PlacementScalingHarness {
+    private static final String[] STAGES = { "generate", "load", "aggregate", "train", "predict", "render" };
+    // Throughput below this share of the best so far counts as no longer scaling
+    private static final double SCALING_THRESHOLD = 0.8;
+    private static final int FORECAST_YEARS = 10;
+
+    // One size of the sweep; stages that did not run keep -1
+    private static final class Run {
+        final long rows;
+        long bytes;
+        final long[] nanos = new long[STAGES.length];
+        final long[] peakHeap = new long[STAGES.length];
+        String failure;
+
+        Run(long rows) {
+            this.rows = rows;
+            Arrays.fill(nanos, -1);
+            Arrays.fill(peakHeap, -1);
+        }
+
+        // Everything but generate, which only stands in for the data arriving
+        long pipelineNanos() {
+            long total = 0;
+            for (int s = 1; s < STAGES.length; s++) {
+                total += Math.max(0, nanos[s]);
+            }
+            return total;
+        }
+
+        // True when every stage ran, even if the sweep stopped after this size
+        boolean finished() {
+            return nanos[STAGES.length - 1] >= 0;
+        }
+
+        double rowsPerSecond(int stage) {
+            long n = stage < 0 ? pipelineNanos() : nanos[stage];
+            return n <= 0 ? 0 : rows * 1e9 / n;
+        }
+    }
+
+    private interface Stage {
+        void run() throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+
+        SyntheticPlacements.Generator generator = SyntheticPlacements.generator().columns(2);
+        long[] sizes = { 1_000, 10_000, 100_000, 1_000_000, 10_000_000 };
+        int firstYear = generator.firstYear;
+        int years = generator.years;
+        int forecasts = 1000;
+        int paints = 20;
+        double maxSeconds = 600;
+        File dir = null;
+        String out = null;
+        boolean valid = true;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--sizes":
+                        String[] parts = args[++i].split(",");
+                        sizes = new long[parts.length];
+                        for (int p = 0; p < parts.length; p++) {
+                            sizes[p] = PlacementDataGenerator.parseCount(parts[p].trim());
+                        }
+                        break;
+                    case "--first-year":
+                        firstYear = Integer.parseInt(args[++i]);
+                        break;
+                    case "--years":
+                        years = Integer.parseInt(args[++i]);
+                        break;
+                    case "--distribution":
+                        generator.distribution(
+                                SyntheticPlacements.Distribution.valueOf(args[++i].toUpperCase(Locale.ROOT)));
+                        break;
+                    case "--columns":
+                        generator.columns(Integer.parseInt(args[++i]));
+                        break;
+                    case "--skew":
+                        generator.skew(Double.parseDouble(args[++i]));
+                        break;
+                    case "--seed":
+                        generator.seed(Long.parseLong(args[++i]));
+                        break;
+                    case "--forecasts":
+                        forecasts = Integer.parseInt(args[++i]);
+                        break;
+                    case "--paints":
+                        paints = Integer.parseInt(args[++i]);
+                        break;
+                    case "--max-seconds":
+                        maxSeconds = Double.parseDouble(args[++i]);
+                        break;
+                    case "--dir":
+                        dir = new File(args[++i]);
+                        break;
+                    case "--out":
+                        out = args[++i];
+                        break;
+                    default:
+                        throw new IllegalArgumentException(args[i]);
+                }
+            }
+            // Training needs 3 years
+            if (years < 3)
+                throw new IllegalArgumentException("years");
+            generator.years(firstYear, years);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            valid = false;
+        }
+        if (!valid || sizes.length == 0 || forecasts < 1 || paints < 1) {
+            System.err.println("Usage: java placement.PlacementScalingHarness [--sizes 1e3,1e4,...]"
+                    + " [--first-year YEAR] [--years N] [--distribution uniform|rising|falling|peaked]"
+                    + " [--columns 0-3] [--skew S] [--seed S] [--forecasts N] [--paints N] [--max-seconds S]"
+                    + " [--dir DIR] [--out FILE]");
+            System.exit(2);
+        }
+        boolean temporary = dir == null;
+        if (temporary)
+            dir = Files.createTempDirectory("placement-scaling").toFile();
+
+        List<Run> runs = new ArrayList<>();
+        for (long rows : sizes) {
+            Run run = new PlacementScalingHarness(generator.rows(rows), dir, forecasts, paints).run();
+            runs.add(run);
+            System.err.printf(Locale.ROOT, "%,d rows: %s%n", rows, run.failure == null
+                    ? String.format(Locale.ROOT, "%.1f s", run.pipelineNanos() / 1e9) : run.failure);
+            if (run.failure != null)
+                break;
+            if (run.pipelineNanos() / 1e9 > maxSeconds) {
+                run.failure = String.format(Locale.ROOT, "sweep stopped: took longer than %.0f s", maxSeconds);
+                break;
+            }
+        }
+        if (temporary)
+            dir.delete();
+
+        System.out.print(report(runs));
+        if (out != null) {
+            try (PrintStream csv = new PrintStream(new FileOutputStream(out))) {
+                csv.println("rows,bytes,stage,nanos,peak_heap_bytes,rows_per_second");
+                for (Run run : runs) {
+                    for (int s = 0; s < STAGES.length; s++) {
+                        if (run.nanos[s] >= 0)
+                            csv.printf(Locale.ROOT, "%d,%d,%s,%d,%d,%.1f%n", run.rows, run.bytes, STAGES[s],
+                                    run.nanos[s], run.peakHeap[s], run.rowsPerSecond(s));
+                    }
+                }
+            }
+        }
+    }
+
+    private final SyntheticPlacements.Generator generator;
+    private final File dir;
+    private final int forecasts;
+    private final int paints;
+
+    private PlacementScalingHarness(SyntheticPlacements.Generator generator, File dir, int forecasts, int paints) {
+        this.generator = generator;
+        this.dir = dir;
+        this.forecasts = forecasts;
+        this.paints = paints;
+    }
+
+    private Run run() {
+        Run run = new Run(generator.rows);
+        File csv = new File(dir, "placements-" + generator.rows + ".csv");
+        Workspace workspace = new Workspace();
+        Dataset[] dataset = new Dataset[1];
+        TrainedModel[] model = new TrainedModel[1];
+        try {
+            measure(run, 0, () -> run.bytes = generator.write(csv));
+            measure(run, 1, () -> dataset[0] = workspace.open(csv));
+            if (!dataset[0].state().hasData())
+                throw new IOException("no rows loaded");
+            measure(run, 2, () -> aggregate(dataset[0]));
+            ChartState.Series series = dataset[0].state().series;
+            measure(run, 3, () -> model[0] = ForecastEngine.trainEnsemble(series.yearValues, series.placedStudents,
+                    ForecastEngine.defaultOptions(), ForecastEngine.DEFAULT_ENSEMBLE_SIZE,
+                    ForecastEngine.DEFAULT_SEED, null));
+            measure(run, 4, () -> {
+                for (int i = 0; i < forecasts; i++) {
+                    ForecastEngine.forecast(model[0], series.yearValues, series.placedStudents,
+                            series.lastYear() + FORECAST_YEARS);
+                }
+            });
+            dataset[0].useModel(model[0]);
+            dataset[0].highlight(String.valueOf(series.lastYear() + FORECAST_YEARS / 2));
+            measure(run, 5, () -> render(workspace));
+        } catch (OutOfMemoryError e) {
+            run.failure = "out of heap in " + STAGES[failedStage(run)];
+        } catch (Exception e) {
+            run.failure = STAGES[failedStage(run)] + " failed: " + e;
+        } finally {
+            if (dataset[0] != null)
+                workspace.close(dataset[0]);
+            csv.delete();
+            CsvSnapshot.fileFor(csv).delete();
+        }
+        return run;
+    }
+
+    private static int failedStage(Run run) {
+        int stage = 0;
+        while (stage < STAGES.length - 1 && run.nanos[stage] >= 0) {
+            stage++;
+        }
+        return stage;
+    }
+
+    // The whole series and each value of every dimension column on its own, the
+    // slices the GUI filters ask for
+    private static void aggregate(Dataset dataset) {
+        dataset.histogram(null);
+        String[] dimensions = dataset.dimensions();
+        for (int d = 0; d < dimensions.length; d++) {
+            for (String value : dataset.values(d)) {
+                String[] selection = new String[dimensions.length];
+                selection[d] = value;
+                dataset.histogram(selection);
+            }
+        }
+    }
+
+    private void render(Workspace workspace) {
+        GraphPanel panel = new GraphPanel(workspace);
+        panel.setSize(1280, 720);
+        BufferedImage image = new BufferedImage(1280, 720, BufferedImage.TYPE_INT_ARGB);
+        for (int i = 0; i < paints; i++) {
+            panel.discardChartCache();
+            Graphics2D g = image.createGraphics();
+            panel.paint(g);
+            g.dispose();
+        }
+    }
+
+    // Peaks are summed over the heap pools after a collection, so they bound the
+    // heap the stage needed from above; the young pool is counted at its fullest
+    private static void measure(Run run, int stage, Stage body) throws Exception {
+        List<MemoryPoolMXBean> heap = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP)
+                heap.add(pool);
+        }
+        System.gc();
+        for (MemoryPoolMXBean pool : heap) {
+            pool.resetPeakUsage();
+        }
+        long start = System.nanoTime();
+        body.run();
+        long elapsed = System.nanoTime() - start;
+        long peak = 0;
+        for (MemoryPoolMXBean pool : heap) {
+            peak += pool.getPeakUsage().getUsed();
+        }
+        run.nanos[stage] = elapsed;
+        run.peakHeap[stage] = peak;
+    }
+
+    private static String report(List<Run> runs) {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format(Locale.ROOT, "Max heap %.0f MB, %d processors%n%n",
+                Runtime.getRuntime().maxMemory() / 1e6, Runtime.getRuntime().availableProcessors()));
+
+        text.append(String.format(Locale.ROOT, "%14s %10s", "rows", "MB"));
+        for (String stage : STAGES) {
+            text.append(String.format(Locale.ROOT, " %12s", stage + " ms"));
+        }
+        text.append(String.format(Locale.ROOT, " %12s %10s%n", "rows/s", "heap MB"));
+        for (Run run : runs) {
+            text.append(String.format(Locale.ROOT, "%,14d %10.1f", run.rows, run.bytes / 1e6));
+            long peak = 0;
+            for (int s = 0; s < STAGES.length; s++) {
+                text.append(run.nanos[s] < 0 ? String.format(Locale.ROOT, " %12s", "-")
+                        : String.format(Locale.ROOT, " %12.1f", run.nanos[s] / 1e6));
+                peak = Math.max(peak, run.peakHeap[s]);
+            }
+            text.append(run.finished() ? String.format(Locale.ROOT, " %,12.0f", run.rowsPerSecond(-1))
+                    : String.format(Locale.ROOT, " %12s", "-"));
+            text.append(String.format(Locale.ROOT, " %10.1f%n", peak / 1e6));
+        }
+
+        text.append(String.format(Locale.ROOT, "%nPeak heap MB per stage%n%14s", "rows"));
+        for (String stage : STAGES) {
+            text.append(String.format(Locale.ROOT, " %10s", stage));
+        }
+        text.append('\n');
+        for (Run run : runs) {
+            text.append(String.format(Locale.ROOT, "%,14d", run.rows));
+            for (int s = 0; s < STAGES.length; s++) {
+                text.append(run.peakHeap[s] < 0 ? String.format(Locale.ROOT, " %10s", "-")
+                        : String.format(Locale.ROOT, " %10.1f", run.peakHeap[s] / 1e6));
+            }
+            text.append('\n');
+        }
+
+        text.append('\n').append(scaling(runs));
+        return text.toString();
+    }
+
+    // Rows per second of the pipeline grow while fixed costs are being amortized
+    // and level off once the per row stages dominate. Scaling stops at the first
+    // size whose throughput falls below SCALING_THRESHOLD of the best before it,
+    // and the stage whose time per row grew the most is named as the cause.
+    private static String scaling(List<Run> runs) {
+        StringBuilder text = new StringBuilder();
+        Run best = null;
+        Run stopped = null;
+        Run last = null;
+        for (Run run : runs) {
+            if (!run.finished())
+                break;
+            last = run;
+            if (best != null && run.rowsPerSecond(-1) < SCALING_THRESHOLD * best.rowsPerSecond(-1)) {
+                stopped = run;
+                break;
+            }
+            if (best == null || run.rowsPerSecond(-1) > best.rowsPerSecond(-1))
+                best = run;
+        }
+
+        if (best == null) {
+            text.append("No size completed the pipeline.\n");
+        } else if (stopped != null) {
+            int worst = 1;
+            double worstGrowth = 0;
+            for (int s = 1; s < STAGES.length; s++) {
+                double growth = (double) stopped.nanos[s] / stopped.rows / ((double) best.nanos[s] / best.rows);
+                if (growth > worstGrowth) {
+                    worst = s;
+                    worstGrowth = growth;
+                }
+            }
+            text.append(String.format(Locale.ROOT,
+                    "Throughput stops scaling at %,d rows: %,.0f rows/s against %,.0f rows/s at %,d rows."
+                            + " Time per row in %s grew %.1fx.%n",
+                    stopped.rows, stopped.rowsPerSecond(-1), best.rowsPerSecond(-1), best.rows, STAGES[worst],
+                    worstGrowth));
+        } else {
+            text.append(String.format(Locale.ROOT,
+                    "Throughput still scales at %,d rows (best %,.0f rows/s at %,d rows).%n", last.rows,
+                    best.rowsPerSecond(-1), best.rows));
+        }
+        for (Run run : runs) {
+            if (run.failure != null)
+                text.append(String.format(Locale.ROOT, "At %,d rows: %s.%n", run.rows, run.failure));
+        }
+
+        // Stages whose cost does not depend on the row count should stay flat
+        Run first = runs.get(0);
+        if (last != null && first != last) {
+            for (int s = 3; s < STAGES.length; s++) {
+                if (last.nanos[s] > 2 * first.nanos[s])
+                    text.append(String.format(Locale.ROOT, "%s took %.1fx longer at %,d rows than at %,d rows.%n",
+                            STAGES[s], (double) last.nanos[s] / first.nanos[s], last.rows, first.rows));
+            }
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,337 @@
+// AIM : Placement training prediction and visual analytics for engineering college
+
+package placement;
+
+import java.awt.*;
+import java.io.*;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+import javax.swing.*;
+
+public class PlacementTrendAnalyzer extends JFrame {
+    private static final String ALL_VALUES = "All";
+
+    private JPanel mainPanel;
+    private CardLayout cardLayout;
+    private final Workspace workspace = new Workspace();
+    private final GraphPanel graphPanel = new GraphPanel(workspace);
+    private JPanel endScreen;
+
+    public PlacementTrendAnalyzer() {
+        setTitle("Placement Bar Graph with Deep Learning");
+        setSize(800, 600);
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setLocationRelativeTo(null);
+
+        cardLayout = new CardLayout();
+        mainPanel = new JPanel(cardLayout);
+
+        JPanel startScreen = createStartScreen();
+        mainPanel.add(startScreen, "START");
+
+        endScreen = new JPanel();
+        mainPanel.add(endScreen, "END");
+
+        add(mainPanel);
+
+        cardLayout.show(mainPanel, "START");
+    }
+
+    private JPanel createStartScreen() {
+        JPanel wrapperPanel = new JPanel();
+        wrapperPanel.setLayout(new BoxLayout(wrapperPanel, BoxLayout.Y_AXIS));
+
+        GraphPanel startGraphPanel = new GraphPanel(workspace);
+        startGraphPanel.setPreferredSize(new Dimension(800, 400));
+        wrapperPanel.add(startGraphPanel);
+
+        JPanel buttonsPanel = new JPanel();
+        buttonsPanel.setLayout(new FlowLayout(FlowLayout.CENTER, 20, 10));
+
+        JButton uploadButton = new JButton("Upload CSV");
+        uploadButton.setPreferredSize(new Dimension(120, 30));
+        buttonsPanel.add(uploadButton);
+
+        JButton exitButton = new JButton("Exit");
+        exitButton.setPreferredSize(new Dimension(120, 30));
+        buttonsPanel.add(exitButton);
+
+        wrapperPanel.add(buttonsPanel);
+
+        uploadButton.addActionListener(e -> openFiles(startGraphPanel.chooseCSVFiles()));
+
+        exitButton.addActionListener(e -> System.exit(0));
+
+        return wrapperPanel;
+    }
+
+    // Loads the files in parallel off the EDT. The last one to finish becomes the
+    // active dataset and the end screen is rebuilt around it.
+    private void openFiles(File[] files) {
+        if (files.length == 0)
+            return;
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        new SwingWorker<List<String>, Void>() {
+            @Override
+            protected List<String> doInBackground() {
+                return Arrays.stream(files).parallel().map(file -> {
+                    try {
+                        workspace.open(file);
+                        return null;
+                    } catch (IOException e) {
+                        return file.getName() + ": " + e.getMessage();
+                    }
+                }).filter(Objects::nonNull).collect(Collectors.toList());
+            }
+
+            @Override
+            protected void done() {
+                setCursor(Cursor.getDefaultCursor());
+                try {
+                    List<String> errors = get();
+                    if (!errors.isEmpty()) {
+                        JOptionPane.showMessageDialog(PlacementTrendAnalyzer.this,
+                                "Error reading file: " + String.join("\n", errors));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    JOptionPane.showMessageDialog(PlacementTrendAnalyzer.this, "Error reading file: " + e.getCause());
+                }
+                if (graphPanel.hasData()) {
+                    updateEndScreen();
+                    cardLayout.show(mainPanel, "END");
+                }
+            }
+        }.execute();
+    }
+
+    private void updateEndScreen() {
+        Dataset dataset = workspace.active();
+        endScreen.removeAll();
+        endScreen.setLayout(new BoxLayout(endScreen, BoxLayout.Y_AXIS));
+
+        graphPanel.setPreferredSize(new Dimension(800, 400));
+        endScreen.add(graphPanel);
+
+        JPanel buttonsPanel = new JPanel();
+        buttonsPanel.setLayout(new FlowLayout(FlowLayout.CENTER, 20, 10));
+
+        JButton trainButton = new JButton("Train Model");
+        trainButton.setPreferredSize(new Dimension(120, 30));
+        buttonsPanel.add(trainButton);
+
+        JButton tuneButton = new JButton("Auto Tune");
+        tuneButton.setPreferredSize(new Dimension(120, 30));
+        buttonsPanel.add(tuneButton);
+
+        JButton refreshButton = new JButton("Refresh CSV");
+        refreshButton.setPreferredSize(new Dimension(120, 30));
+        buttonsPanel.add(refreshButton);
+
+        JCheckBox watchBox = new JCheckBox("Watch file");
+        buttonsPanel.add(watchBox);
+
+        JButton metricsButton = new JButton("Metrics");
+        metricsButton.setPreferredSize(new Dimension(120, 30));
+        buttonsPanel.add(metricsButton);
+
+        JButton exitButton = new JButton("Exit");
+        exitButton.setPreferredSize(new Dimension(120, 30));
+        buttonsPanel.add(exitButton);
+
+        endScreen.add(buttonsPanel);
+
+        JPanel datasetPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 0));
+        JComboBox<Dataset> datasetBox = new JComboBox<>(workspace.datasets().toArray(new Dataset[0]));
+        datasetBox.setSelectedItem(dataset);
+        JButton addButton = new JButton("Add CSV");
+        JButton closeButton = new JButton("Close");
+        datasetPanel.add(new JLabel("Dataset:"));
+        datasetPanel.add(datasetBox);
+        datasetPanel.add(addButton);
+        datasetPanel.add(closeButton);
+        endScreen.add(datasetPanel);
+
+        String[] dimensions = dataset.dimensions();
+        String[] selection = dataset.state().series.selection;
+        if (dimensions.length > 0) {
+            JPanel filterPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 0));
+            for (int d = 0; d < dimensions.length; d++) {
+                final int dimension = d;
+                JComboBox<String> valueBox = new JComboBox<>();
+                valueBox.addItem(ALL_VALUES);
+                for (String value : dataset.values(dimension)) {
+                    valueBox.addItem(value);
+                }
+                if (selection != null && selection[dimension] != null)
+                    valueBox.setSelectedItem(selection[dimension]);
+                // Values appended to a watched file show up the next time the list opens
+                valueBox.addPopupMenuListener(new javax.swing.event.PopupMenuListener() {
+                    public void popupMenuWillBecomeVisible(javax.swing.event.PopupMenuEvent e) {
+                        Object selected = valueBox.getSelectedItem();
+                        DefaultComboBoxModel<String> items = new DefaultComboBoxModel<>();
+                        items.addElement(ALL_VALUES);
+                        for (String value : dataset.values(dimension)) {
+                            items.addElement(value);
+                        }
+                        items.setSelectedItem(selected);
+                        valueBox.setModel(items);
+                    }
+
+                    public void popupMenuWillBecomeInvisible(javax.swing.event.PopupMenuEvent e) {
+                    }
+
+                    public void popupMenuCanceled(javax.swing.event.PopupMenuEvent e) {
+                    }
+                });
+                valueBox.addActionListener(e -> {
+                    Object selected = valueBox.getSelectedItem();
+                    dataset.select(dimension, ALL_VALUES.equals(selected) ? null : (String) selected);
+                });
+                filterPanel.add(new JLabel(dimensions[d] + ":"));
+                filterPanel.add(valueBox);
+            }
+            endScreen.add(filterPanel);
+        }
+
+        JPanel predictionPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 10));
+        JLabel label = new JLabel("Enter year to highlight:");
+        JTextField yearInput = new JTextField(6);
+        JButton dlPredictButton = new JButton("DL Prediction");
+
+        predictionPanel.add(label);
+        predictionPanel.add(yearInput);
+        predictionPanel.add(dlPredictButton);
+
+        endScreen.add(predictionPanel);
+
+        datasetBox.addActionListener(e -> {
+            Dataset selected = (Dataset) datasetBox.getSelectedItem();
+            if (selected != null && selected != workspace.active()) {
+                workspace.activate(selected);
+                // Rebuilt after this event, as the filters differ per dataset
+                SwingUtilities.invokeLater(this::updateEndScreen);
+            }
+        });
+
+        addButton.addActionListener(e -> openFiles(graphPanel.chooseCSVFiles()));
+
+        closeButton.addActionListener(e -> {
+            workspace.close(dataset);
+            if (workspace.active() == null) {
+                cardLayout.show(mainPanel, "START");
+            } else {
+                updateEndScreen();
+            }
+        });
+
+        trainButton.addActionListener(e -> {
+            ChartState state = dataset.state();
+            if (!state.hasData()) {
+                JOptionPane.showMessageDialog(this, "Please upload data first!");
+            } else if (state.series.placedStudents.length < 3) {
+                JOptionPane.showMessageDialog(this, "Need at least 3 years of data to train!");
+            } else {
+                trainButton.setEnabled(false);
+                new TrainingJob(this, dataset, ForecastEngine.defaultOptions(),
+                        () -> trainButton.setEnabled(true)).start();
+            }
+        });
+
+        tuneButton.addActionListener(e -> {
+            ChartState state = dataset.state();
+            if (!state.hasData()) {
+                JOptionPane.showMessageDialog(this, "Please upload data first!");
+            } else if (state.series.placedStudents.length < 4) {
+                JOptionPane.showMessageDialog(this, "Need at least 4 years of data to tune!");
+            } else {
+                tuneButton.setEnabled(false);
+                new AutoTuneJob(this, dataset, () -> tuneButton.setEnabled(true)).start();
+            }
+        });
+
+        // The rescan reads the file, so it runs off the EDT like training; the chart
+        // repaints when the new series is published
+        refreshButton.addActionListener(e -> {
+            refreshButton.setEnabled(false);
+            new SwingWorker<Boolean, Void>() {
+                @Override
+                protected Boolean doInBackground() throws IOException {
+                    return dataset.refresh();
+                }
+
+                @Override
+                protected void done() {
+                    refreshButton.setEnabled(true);
+                    try {
+                        get();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    } catch (ExecutionException ex) {
+                        JOptionPane.showMessageDialog(PlacementTrendAnalyzer.this,
+                                "Error reading file: " + ex.getCause().getMessage());
+                    }
+                }
+            }.execute();
+        });
+
+        watchBox.setSelected(dataset.isWatching());
+        watchBox.addActionListener(e -> {
+            if (watchBox.isSelected()) {
+                try {
+                    dataset.startWatching();
+                } catch (IOException ex) {
+                    watchBox.setSelected(false);
+                    JOptionPane.showMessageDialog(this, "Cannot watch file: " + ex.getMessage());
+                }
+            } else {
+                dataset.stopWatching();
+            }
+        });
+
+        metricsButton.addActionListener(e -> {
+            JTextArea report = new JTextArea(Metrics.toText());
+            report.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+            report.setEditable(false);
+            JScrollPane scroll = new JScrollPane(report);
+            scroll.setPreferredSize(new Dimension(760, 260));
+            JOptionPane.showMessageDialog(this, scroll, "Metrics", JOptionPane.INFORMATION_MESSAGE);
+        });
+
+        exitButton.addActionListener(e -> System.exit(0));
+
+        dlPredictButton.addActionListener(e -> {
+            String inputYear = yearInput.getText().trim();
+            if (inputYear.isEmpty()) {
+                JOptionPane.showMessageDialog(this, "Please enter a year.");
+                return;
+            }
+            try {
+                int year = Integer.parseInt(inputYear);
+                ChartState.Series series = dataset.state().series;
+                if (series.yearValues.length > 0
+                        && (long) year - series.lastYear() > ForecastEngine.MAX_HORIZON) {
+                    JOptionPane.showMessageDialog(this, "Forecasts reach at most " + ForecastEngine.MAX_HORIZON
+                            + " years past " + series.lastYear() + ".");
+                    return;
+                }
+                boolean success = dataset.highlight(inputYear);
+                if (!success) {
+                    JOptionPane.showMessageDialog(this, "Could not predict. Train the model first!");
+                }
+            } catch (NumberFormatException ex) {
+                JOptionPane.showMessageDialog(this, "Please enter a valid numeric year.");
+            }
+        });
+
+        endScreen.revalidate();
+        endScreen.repaint();
+    }
+
+    public static void main(String[] args) {
+        SwingUtilities.invokeLater(() -> new PlacementTrendAnalyzer().setVisible(true));
+    }
+}
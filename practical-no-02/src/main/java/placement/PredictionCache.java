@@ -0,0 +1,116 @@
+package placement;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Bounded cache of predicted counts keyed by dataset fingerprint, model version
+// and target year. Lookups are lock free; every entry carries the time of its
+// last access and, once the cache is over capacity, one thread evicts the least
+// recently used entries in a batch. A retrain or reload changes the fingerprint
+// or model version, so stale entries stop matching and age out with the rest.
+// Hits, misses and evictions are counted in Metrics.
+final class PredictionCache {
+    private static final class Key {
+        final long fingerprint;
+        final long modelVersion;
+        final int year;
+
+        Key(long fingerprint, long modelVersion, int year) {
+            this.fingerprint = fingerprint;
+            this.modelVersion = modelVersion;
+            this.year = year;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key))
+                return false;
+            Key other = (Key) o;
+            return fingerprint == other.fingerprint && modelVersion == other.modelVersion && year == other.year;
+        }
+
+        @Override
+        public int hashCode() {
+            long h = fingerprint * 31 + modelVersion;
+            return (int) (h ^ (h >>> 32)) * 31 + year;
+        }
+    }
+
+    // Predicted count and the ensemble band around it
+    static final class Entry {
+        final int count;
+        final int low;
+        final int high;
+        volatile long lastAccess;
+
+        Entry(int count, int low, int high, long lastAccess) {
+            this.count = count;
+            this.low = low;
+            this.high = high;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    private final int capacity;
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    PredictionCache(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("capacity must be at least 1");
+        this.capacity = capacity;
+    }
+
+    // Cached prediction, or null on a miss
+    Entry get(long fingerprint, long modelVersion, int year) {
+        Entry entry = entries.get(new Key(fingerprint, modelVersion, year));
+        if (entry == null) {
+            Metrics.PREDICTION_CACHE_MISSES.add(1);
+            return null;
+        }
+        entry.lastAccess = clock.incrementAndGet();
+        Metrics.PREDICTION_CACHE_HITS.add(1);
+        return entry;
+    }
+
+    void put(long fingerprint, long modelVersion, int year, int count, int low, int high) {
+        entries.put(new Key(fingerprint, modelVersion, year), new Entry(count, low, high, clock.incrementAndGet()));
+        if (entries.size() > capacity)
+            evict();
+    }
+
+    // Drops the least recently used entries down to 7/8 of capacity so eviction
+    // runs once per batch of inserts rather than on every insert
+    private void evict() {
+        if (!evictionLock.tryLock())
+            return;
+        try {
+            int excess = entries.size() - capacity * 7 / 8;
+            if (excess <= 0)
+                return;
+            // Access times keep changing under concurrent readers, so sort a copy
+            List<Map.Entry<Key, Entry>> snapshot = new ArrayList<>(entries.entrySet());
+            long[] stamps = new long[snapshot.size()];
+            for (int i = 0; i < stamps.length; i++) {
+                stamps[i] = snapshot.get(i).getValue().lastAccess;
+            }
+            long[] sorted = stamps.clone();
+            Arrays.sort(sorted);
+            long cutoff = sorted[Math.min(excess, sorted.length) - 1];
+
+            int removed = 0;
+            for (int i = 0; i < stamps.length && removed < excess; i++) {
+                Map.Entry<Key, Entry> e = snapshot.get(i);
+                if (stamps[i] <= cutoff && entries.remove(e.getKey(), e.getValue())) {
+                    removed++;
+                    Metrics.PREDICTION_CACHE_EVICTIONS.add(1);
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package placement;
+
+// Min and max of a series over buckets of 1, 2, 4, ... points. Built once per
+// data change so a chart can draw one bucket per pixel column instead of one bar
+// per point, whatever the length of the series.
+final class SeriesPyramid {
+    private final int[][] min;
+    private final int[][] max;
+
+    SeriesPyramid(int[] values) {
+        int levels = 1;
+        for (int n = values.length; n > 1; n = (n + 1) / 2) {
+            levels++;
+        }
+        min = new int[levels][];
+        max = new int[levels][];
+
+        min[0] = values.clone();
+        max[0] = min[0];
+        for (int level = 1; level < levels; level++) {
+            int[] prevMin = min[level - 1];
+            int[] prevMax = max[level - 1];
+            int n = (prevMin.length + 1) / 2;
+            min[level] = new int[n];
+            max[level] = new int[n];
+            for (int i = 0; i < n; i++) {
+                int a = 2 * i;
+                int b = Math.min(a + 1, prevMin.length - 1);
+                min[level][i] = Math.min(prevMin[a], prevMin[b]);
+                max[level][i] = Math.max(prevMax[a], prevMax[b]);
+            }
+        }
+    }
+
+    // Finest level with at most maxBuckets buckets
+    int levelFor(int maxBuckets) {
+        for (int level = 0; level < min.length; level++) {
+            if (min[level].length <= Math.max(1, maxBuckets))
+                return level;
+        }
+        return min.length - 1;
+    }
+
+    int size(int level) {
+        return min[level].length;
+    }
+
+    // Index of the first series point in a bucket
+    int firstIndex(int level, int bucket) {
+        return bucket << level;
+    }
+
+    int min(int level, int bucket) {
+        return min[level][bucket];
+    }
+
+    int max(int level, int bucket) {
+        return max[level][bucket];
+    }
+}
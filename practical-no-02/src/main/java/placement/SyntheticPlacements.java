@@ -0,0 +1,216 @@
+package placement;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Reproducible placement data for benchmarks and load tests. The same seed always
+// gives the same bytes, so runs on different machines or commits see equal input.
+final class SyntheticPlacements {
+    static final String[] BRANCHES = { "CSE", "IT", "ENTC", "MECH", "CIVIL", "ELECTRICAL" };
+    static final String[] COMPANIES = { "TCS", "Infosys", "Wipro", "Accenture", "Capgemini", "Cognizant",
+            "Google", "Amazon", "Microsoft", "Deloitte" };
+
+    private SyntheticPlacements() {
+    }
+
+    // Placed students per year: steady growth from base with about 10% noise
+    static int[] counts(int years, int base, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] counts = new int[years];
+        for (int i = 0; i < years; i++) {
+            double trend = base * (1 + 0.05 * i);
+            counts[i] = Math.max(0, (int) Math.round(trend * (0.9 + 0.2 * random.nextDouble())));
+        }
+        return counts;
+    }
+
+    static int[] years(int firstYear, int years) {
+        int[] values = new int[years];
+        for (int i = 0; i < years; i++) {
+            values[i] = firstYear + i;
+        }
+        return values;
+    }
+
+    // Writes a 'Name,Year' CSV, or 'Name,Year,Branch,Company' when dimensional, with
+    // rows spread over [firstYear, firstYear + years) so later years have more rows
+    static void writeCsv(File file, long rows, int firstYear, int years, boolean dimensional, long seed)
+            throws IOException {
+        generator().rows(rows).years(firstYear, years).columns(dimensional ? 2 : 0).seed(seed).write(file);
+    }
+
+    static Generator generator() {
+        return new Generator();
+    }
+
+    // How rows are spread over the years
+    enum Distribution {
+        UNIFORM, RISING, FALLING, PEAKED
+    }
+
+    // Settings for a generated CSV; setters return this so a file can be written
+    // in one expression. Rows are streamed, so any count fits in memory.
+    static final class Generator {
+        private static final String[] COLUMNS = { "Branch", "Company", "Package" };
+        private static final String[][] VALUES = { BRANCHES, COMPANIES, packages() };
+
+        long rows = 1000;
+        int firstYear = 2000;
+        int years = 25;
+        Distribution distribution = Distribution.RISING;
+        // Extra columns after Name,Year, taken in the order Branch, Company, Package
+        int columns = 0;
+        // Zipf exponent for the extra column values: 0 picks them uniformly and
+        // larger values crowd the rows into the first few
+        double skew = 0;
+        long seed = 42;
+
+        private static String[] packages() {
+            // Annual package in lakhs, the common low packages first
+            String[] values = new String[38];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = String.valueOf(3 + i);
+            }
+            return values;
+        }
+
+        Generator rows(long rows) {
+            if (rows < 0)
+                throw new IllegalArgumentException("rows must not be negative");
+            this.rows = rows;
+            return this;
+        }
+
+        Generator years(int firstYear, int years) {
+            if (years < 1 || firstYear < 1000 || firstYear + years > 10000)
+                throw new IllegalArgumentException("years must lie within 1000..9999");
+            this.firstYear = firstYear;
+            this.years = years;
+            return this;
+        }
+
+        Generator distribution(Distribution distribution) {
+            this.distribution = distribution;
+            return this;
+        }
+
+        Generator columns(int columns) {
+            if (columns < 0 || columns > COLUMNS.length)
+                throw new IllegalArgumentException("columns must be 0 to " + COLUMNS.length);
+            this.columns = columns;
+            return this;
+        }
+
+        Generator skew(double skew) {
+            if (skew < 0)
+                throw new IllegalArgumentException("skew must not be negative");
+            this.skew = skew;
+            return this;
+        }
+
+        Generator seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        // Returns the bytes written
+        long write(File file) throws IOException {
+            SplittableRandom random = new SplittableRandom(seed);
+            byte[][] yearBytes = new byte[years][];
+            for (int i = 0; i < years; i++) {
+                yearBytes[i] = ascii("," + (firstYear + i));
+            }
+            byte[][][] valueBytes = new byte[columns][][];
+            double[][] cumulative = new double[columns][];
+            StringBuilder header = new StringBuilder("Name,Year");
+            for (int c = 0; c < columns; c++) {
+                header.append(',').append(COLUMNS[c]);
+                valueBytes[c] = new byte[VALUES[c].length][];
+                cumulative[c] = new double[VALUES[c].length];
+                double total = 0;
+                for (int v = 0; v < VALUES[c].length; v++) {
+                    valueBytes[c][v] = ascii("," + VALUES[c][v]);
+                    total += 1 / Math.pow(v + 1, skew);
+                    cumulative[c][v] = total;
+                }
+            }
+
+            // Lines are assembled straight into the buffer; the longest is well under 64 bytes
+            byte[] buffer = new byte[1 << 16];
+            byte[] digits = new byte[20];
+            int position = 0;
+            long written = 0;
+            try (OutputStream out = new FileOutputStream(file)) {
+                byte[] head = ascii(header.append('\n').toString());
+                out.write(head);
+                written += head.length;
+                for (long row = 0; row < rows; row++) {
+                    if (position > buffer.length - 128) {
+                        out.write(buffer, 0, position);
+                        written += position;
+                        position = 0;
+                    }
+                    int year = year(random);
+                    buffer[position++] = 'S';
+                    int n = 0;
+                    long value = row;
+                    do {
+                        digits[n++] = (byte) ('0' + value % 10);
+                        value /= 10;
+                    } while (value > 0);
+                    while (n > 0) {
+                        buffer[position++] = digits[--n];
+                    }
+                    position = copy(yearBytes[year], buffer, position);
+                    for (int c = 0; c < columns; c++) {
+                        position = copy(valueBytes[c][pick(random, cumulative[c])], buffer, position);
+                    }
+                    buffer[position++] = '\n';
+                }
+                out.write(buffer, 0, position);
+                written += position;
+            }
+            return written;
+        }
+
+        // Index of the year, 0 to years - 1
+        private int year(SplittableRandom random) {
+            double position;
+            switch (distribution) {
+                case UNIFORM:
+                    position = random.nextDouble();
+                    break;
+                case FALLING:
+                    position = 1 - Math.sqrt(random.nextDouble());
+                    break;
+                case PEAKED:
+                    // Normal around the middle year, most rows within the range
+                    position = 0.5 + random.nextGaussian() / 6;
+                    break;
+                default:
+                    // Square root of a uniform draw gives a linearly rising density
+                    position = Math.sqrt(random.nextDouble());
+            }
+            return Math.max(0, Math.min(years - 1, (int) (years * position)));
+        }
+
+        private int pick(SplittableRandom random, double[] cumulative) {
+            if (skew == 0)
+                return random.nextInt(cumulative.length);
+            double target = random.nextDouble() * cumulative[cumulative.length - 1];
+            int index = Arrays.binarySearch(cumulative, target);
+            return Math.min(cumulative.length - 1, index >= 0 ? index : -index - 1);
+        }
+
+        private static int copy(byte[] from, byte[] to, int position) {
+            System.arraycopy(from, 0, to, position, from.length);
+            return position + from.length;
+        }
+
+        private static byte[] ascii(String text) {
+            return text.getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+}
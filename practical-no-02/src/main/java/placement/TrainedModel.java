@@ -0,0 +1,33 @@
+package placement;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// One or more trained networks together with the normalization they were trained
+// with. Inputs and outputs are scaled by maxCount and years are offset from
+// baseYear, so a model stays valid after the data it came from is refreshed or
+// reloaded. An ensemble's members differ only in their random seed.
+final class TrainedModel {
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    // Unique per instance, so caches keyed by it never mix up two sets of weights
+    final long version = VERSIONS.incrementAndGet();
+    final NeuralNetwork[] members;
+    final double maxCount;
+    final int baseYear;
+
+    TrainedModel(NeuralNetwork network, double maxCount, int baseYear) {
+        this(new NeuralNetwork[] { network }, maxCount, baseYear);
+    }
+
+    TrainedModel(NeuralNetwork[] members, double maxCount, int baseYear) {
+        if (members.length == 0)
+            throw new IllegalArgumentException("A model needs at least one network");
+        this.members = members;
+        this.maxCount = maxCount;
+        this.baseYear = baseYear;
+    }
+
+    boolean isEnsemble() {
+        return members.length > 1;
+    }
+}
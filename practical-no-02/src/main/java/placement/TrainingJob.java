@@ -0,0 +1,153 @@
+package placement;
+
+import java.awt.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import javax.swing.*;
+
+// Runs ensemble training on a background thread so the window stays responsive.
+// The first member's per epoch loss is published to a progress dialog, and the
+// trained model is swapped into the dataset only when every member completes,
+// even if another dataset is showing by then.
+class TrainingJob extends SwingWorker<TrainedModel, double[]> {
+    private final Component owner;
+    private final Dataset dataset;
+    private final TrainingOptions options;
+    private final Runnable onFinished;
+
+    // Series of the dataset when the job is created
+    private final ChartState.Series series;
+    private final int[] yearValues;
+    private final int[] placedStudents;
+
+    private final JDialog dialog;
+    private final JProgressBar progressBar;
+    private final LossCurvePanel lossCurve;
+
+    TrainingJob(Component owner, Dataset dataset, TrainingOptions options, Runnable onFinished) {
+        this.owner = owner;
+        this.dataset = dataset;
+        this.options = options;
+        this.onFinished = onFinished;
+        series = dataset.state().series;
+        this.yearValues = series.yearValues;
+        this.placedStudents = series.placedStudents;
+
+        dialog = new JDialog(SwingUtilities.getWindowAncestor(owner),
+                "Training " + ForecastEngine.DEFAULT_ENSEMBLE_SIZE + " Networks");
+        dialog.setLayout(new BorderLayout(10, 10));
+
+        progressBar = new JProgressBar(0, options.epochs);
+        progressBar.setStringPainted(true);
+        dialog.add(progressBar, BorderLayout.NORTH);
+
+        lossCurve = new LossCurvePanel(options.epochs);
+        lossCurve.setPreferredSize(new Dimension(400, 200));
+        dialog.add(lossCurve, BorderLayout.CENTER);
+
+        JButton cancelButton = new JButton("Cancel");
+        cancelButton.addActionListener(e -> cancel(true));
+        JPanel buttonsPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        buttonsPanel.add(cancelButton);
+        dialog.add(buttonsPanel, BorderLayout.SOUTH);
+
+        dialog.setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+        dialog.pack();
+        dialog.setLocationRelativeTo(owner);
+    }
+
+    void start() {
+        dialog.setVisible(true);
+        execute();
+    }
+
+    @Override
+    protected TrainedModel doInBackground() {
+        return ForecastEngine.trainEnsemble(yearValues, placedStudents, options, ForecastEngine.DEFAULT_ENSEMBLE_SIZE,
+                ForecastEngine.DEFAULT_SEED, (member, epoch, loss) -> {
+                    if (member == 0)
+                        publish(new double[] { epoch, loss });
+                    return !isCancelled();
+                });
+    }
+
+    @Override
+    protected void process(java.util.List<double[]> chunks) {
+        for (double[] point : chunks) {
+            lossCurve.addPoint(point[1]);
+        }
+        double[] last = chunks.get(chunks.size() - 1);
+        progressBar.setValue((int) last[0] + 1);
+        progressBar.setString(String.format("Epoch %d / %d, Loss: %.6f", (int) last[0] + 1, options.epochs,
+                last[1]));
+    }
+
+    @Override
+    protected void done() {
+        dialog.dispose();
+        onFinished.run();
+        try {
+            TrainedModel model = get();
+            if (model != null) {
+                dataset.setModel(series, model);
+                JOptionPane.showMessageDialog(owner, "Neural Network trained successfully!");
+            }
+        } catch (CancellationException e) {
+            JOptionPane.showMessageDialog(owner, "Training cancelled.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            JOptionPane.showMessageDialog(owner, "Training failed: " + e.getCause());
+        }
+    }
+}
+
+class LossCurvePanel extends JPanel {
+    private final int epochs;
+    private double[] losses = new double[64];
+    private int size = 0;
+    private double maxLoss = 0;
+
+    LossCurvePanel(int epochs) {
+        this.epochs = epochs;
+        setBackground(Color.WHITE);
+    }
+
+    void addPoint(double loss) {
+        if (size == losses.length) {
+            losses = java.util.Arrays.copyOf(losses, size * 2);
+        }
+        losses[size++] = loss;
+        maxLoss = Math.max(maxLoss, loss);
+        repaint();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        int width = getWidth();
+        int height = getHeight();
+        int padding = 20;
+
+        g.setColor(Color.BLACK);
+        g.drawLine(padding, height - padding, width - padding, height - padding);
+        g.drawLine(padding, padding, padding, height - padding);
+        if (size < 2 || maxLoss <= 0)
+            return;
+
+        g.setColor(Color.RED);
+        int plotWidth = width - 2 * padding;
+        int plotHeight = height - 2 * padding;
+        int prevX = padding;
+        int prevY = height - padding - (int) (losses[0] / maxLoss * plotHeight);
+        for (int i = 1; i < size; i++) {
+            int x = padding + (int) ((long) i * plotWidth / Math.max(1, epochs - 1));
+            int y = height - padding - (int) (losses[i] / maxLoss * plotHeight);
+            g.drawLine(prevX, prevY, x, y);
+            prevX = x;
+            prevY = y;
+        }
+        g.setColor(Color.BLACK);
+        g.drawString(String.format("Loss %.4f", losses[size - 1]), padding + 5, padding);
+    }
+}
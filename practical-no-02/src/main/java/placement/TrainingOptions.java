@@ -0,0 +1,78 @@
+package placement;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+// Settings for NeuralNetwork.train(inputs, outputs, options, listener).
+// Setters return this so a run can be configured in one expression.
+class TrainingOptions {
+    // Neurons in the two hidden layers of networks built by ForecastEngine
+    int hiddenSize1 = 10;
+    int hiddenSize2 = 5;
+    int epochs = 1000;
+    double learningRate = 0.1;
+    // Samples per weight update; gradients are averaged over the batch
+    int batchSize = 32;
+    // Pieces each batch is split into on the shared training pool; 1 computes the
+    // batch on the caller
+    int threads = Runtime.getRuntime().availableProcessors();
+    // A factory because optimizers carry per run state
+    Supplier<Optimizer> optimizer = Optimizer::sgd;
+    LearningRateSchedule schedule = LearningRateSchedule.constant();
+    EarlyStopping earlyStopping = null;
+    List<double[]> validationInputs = null;
+    List<double[]> validationOutputs = null;
+
+    TrainingOptions hiddenSizes(int hiddenSize1, int hiddenSize2) {
+        if (hiddenSize1 < 1 || hiddenSize2 < 1)
+            throw new IllegalArgumentException("hidden layers need at least 1 neuron");
+        this.hiddenSize1 = hiddenSize1;
+        this.hiddenSize2 = hiddenSize2;
+        return this;
+    }
+
+    TrainingOptions epochs(int epochs) {
+        this.epochs = epochs;
+        return this;
+    }
+
+    TrainingOptions learningRate(double learningRate) {
+        this.learningRate = learningRate;
+        return this;
+    }
+
+    TrainingOptions batchSize(int batchSize) {
+        if (batchSize < 1)
+            throw new IllegalArgumentException("batchSize must be at least 1");
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    TrainingOptions threads(int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be at least 1");
+        this.threads = threads;
+        return this;
+    }
+
+    TrainingOptions optimizer(Supplier<Optimizer> optimizer) {
+        this.optimizer = optimizer;
+        return this;
+    }
+
+    TrainingOptions schedule(LearningRateSchedule schedule) {
+        this.schedule = schedule;
+        return this;
+    }
+
+    TrainingOptions earlyStopping(EarlyStopping earlyStopping) {
+        this.earlyStopping = earlyStopping;
+        return this;
+    }
+
+    TrainingOptions validation(List<double[]> inputs, List<double[]> outputs) {
+        this.validationInputs = inputs;
+        this.validationOutputs = outputs;
+        return this;
+    }
+}
@@ -0,0 +1,99 @@
+package placement;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Maps the distinct values of one CSV column to dense int codes. Lookups hash the
+// raw bytes of the field, so a String is only created the first time a value is seen.
+final class ValueDictionary {
+    // Open addressing table of code + 1, 0 marks an empty slot
+    private int[] table = new int[64];
+    private byte[][] keys = new byte[16][];
+    private int[] hashes = new int[16];
+    private String[] values = new String[16];
+    private int size;
+
+    // Code of bytes [from, to), added to the dictionary if it is new
+    int code(byte[] bytes, int from, int to) {
+        int hash = hash(bytes, from, to);
+        int mask = table.length - 1;
+        for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0) {
+                return add(Arrays.copyOfRange(bytes, from, to), hash, slot);
+            }
+            int code = entry - 1;
+            if (hashes[code] == hash && Arrays.equals(keys[code], 0, keys[code].length, bytes, from, to))
+                return code;
+        }
+    }
+
+    // Code of an existing value, or -1
+    int code(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        return find(bytes, 0, bytes.length);
+    }
+
+    // Code of bytes [from, to) if the value is already known, or -1
+    int find(byte[] bytes, int from, int to) {
+        int hash = hash(bytes, from, to);
+        int mask = table.length - 1;
+        for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0)
+                return -1;
+            int code = entry - 1;
+            if (hashes[code] == hash && Arrays.equals(keys[code], 0, keys[code].length, bytes, from, to))
+                return code;
+        }
+    }
+
+    String value(int code) {
+        return values[code];
+    }
+
+    // Raw bytes of a value as they appeared in the file
+    byte[] bytes(int code) {
+        return keys[code];
+    }
+
+    int size() {
+        return size;
+    }
+
+    private int add(byte[] key, int hash, int slot) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        int code = size++;
+        keys[code] = key;
+        hashes[code] = hash;
+        values[code] = new String(key, StandardCharsets.UTF_8);
+        table[slot] = code + 1;
+        if (size * 2 > table.length)
+            rehash();
+        return code;
+    }
+
+    private void rehash() {
+        table = new int[table.length * 2];
+        int mask = table.length - 1;
+        for (int code = 0; code < size; code++) {
+            int slot = hashes[code] & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = code + 1;
+        }
+    }
+
+    private static int hash(byte[] bytes, int from, int to) {
+        int h = 0x811c9dc5;
+        for (int i = from; i < to; i++) {
+            h = (h ^ bytes[i]) * 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+}
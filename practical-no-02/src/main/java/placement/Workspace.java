@@ -0,0 +1,88 @@
+package placement;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Datasets kept open side by side, say one per branch or campus, each with its own
+// model. The list and the active dataset are immutable values behind atomic
+// references, so several files can load at once, a job keeps working on the
+// dataset it started with, and switching is a single reference swap.
+final class Workspace {
+    private final AtomicReference<List<Dataset>> datasets = new AtomicReference<>(List.of());
+    private final AtomicReference<Dataset> active = new AtomicReference<>();
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    // Shared by every dataset; entries are keyed by data fingerprint and model version
+    private final PredictionCache predictions = new PredictionCache(4096);
+
+    // Loads on the calling thread, replaces any dataset open for the same file and
+    // makes the new one active
+    Dataset open(File file) throws IOException {
+        Dataset dataset = new Dataset(file, predictions, this::datasetChanged);
+        dataset.load();
+        File key = file.getAbsoluteFile();
+        List<Dataset> previous = datasets.getAndUpdate(list -> {
+            List<Dataset> updated = new ArrayList<>();
+            for (Dataset open : list) {
+                if (!open.file().getAbsoluteFile().equals(key))
+                    updated.add(open);
+            }
+            updated.add(dataset);
+            return List.copyOf(updated);
+        });
+        for (Dataset open : previous) {
+            if (open.file().getAbsoluteFile().equals(key))
+                open.stopWatching();
+        }
+        activate(dataset);
+        return dataset;
+    }
+
+    void close(Dataset dataset) {
+        dataset.stopWatching();
+        List<Dataset> remaining = datasets.updateAndGet(list -> {
+            List<Dataset> updated = new ArrayList<>(list);
+            updated.remove(dataset);
+            return List.copyOf(updated);
+        });
+        if (active.compareAndSet(dataset, remaining.isEmpty() ? null : remaining.get(0)))
+            changed();
+    }
+
+    List<Dataset> datasets() {
+        return datasets.get();
+    }
+
+    // null until the first file is opened
+    Dataset active() {
+        return active.get();
+    }
+
+    ChartState activeState() {
+        Dataset dataset = active.get();
+        return dataset != null ? dataset.state() : ChartState.EMPTY;
+    }
+
+    void activate(Dataset dataset) {
+        active.set(dataset);
+        changed();
+    }
+
+    // Called on whichever thread made the change
+    void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    private void datasetChanged(Dataset dataset) {
+        if (active.get() == dataset)
+            changed();
+    }
+
+    private void changed() {
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package placement;
+
+import java.util.Arrays;
+
+// Placed student count per year with primitive int keys. Counts live in a dense
+// array offset from the lowest year seen, so lookups are a subtraction and an
+// index, and the year list comes out already sorted.
+class YearHistogram {
+    private int baseYear;
+    private int[] counts = new int[0];
+
+    void add(int year) {
+        add(year, 1);
+    }
+
+    void add(int year, int n) {
+        if (n == 0)
+            return;
+        ensureYear(year);
+        // Fails rather than wrapping once a year passes Integer.MAX_VALUE
+        counts[year - baseYear] = Math.addExact(counts[year - baseYear], n);
+    }
+
+    void merge(YearHistogram other) {
+        for (int i = 0; i < other.counts.length; i++) {
+            if (other.counts[i] != 0)
+                add(other.baseYear + i, other.counts[i]);
+        }
+    }
+
+    int get(int year) {
+        int index = year - baseYear;
+        return index >= 0 && index < counts.length ? counts[index] : 0;
+    }
+
+    boolean contains(int year) {
+        return get(year) > 0;
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // Number of years with at least one placed student
+    int size() {
+        int n = 0;
+        for (int count : counts) {
+            if (count > 0)
+                n++;
+        }
+        return n;
+    }
+
+    int[] years() {
+        int[] result = new int[size()];
+        int k = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0)
+                result[k++] = baseYear + i;
+        }
+        return result;
+    }
+
+    // Counts aligned with years()
+    int[] counts() {
+        int[] result = new int[size()];
+        int k = 0;
+        for (int count : counts) {
+            if (count > 0)
+                result[k++] = count;
+        }
+        return result;
+    }
+
+    // 64-bit hash of the (year, count) pairs; equal histograms give equal fingerprints
+    long fingerprint() {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0)
+                continue;
+            h = (h ^ (baseYear + i)) * 0x100000001b3L;
+            h = (h ^ counts[i]) * 0x100000001b3L;
+        }
+        return h;
+    }
+
+    YearHistogram copy() {
+        YearHistogram copy = new YearHistogram();
+        copy.baseYear = baseYear;
+        copy.counts = counts.clone();
+        return copy;
+    }
+
+    private void ensureYear(int year) {
+        if (counts.length == 0) {
+            baseYear = year;
+            counts = new int[1];
+        } else if (year < baseYear) {
+            int[] grown = new int[counts.length + (baseYear - year)];
+            System.arraycopy(counts, 0, grown, baseYear - year, counts.length);
+            counts = grown;
+            baseYear = year;
+        } else if (year - baseYear >= counts.length) {
+            counts = Arrays.copyOf(counts, year - baseYear + 1);
+        }
+    }
+}
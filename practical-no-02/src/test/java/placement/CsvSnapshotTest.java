@@ -0,0 +1,114 @@
+package placement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+// Histograms restored from a snapshot, and refreshed from it after appends,
+// must equal a plain line by line reparse of the CSV
+class CsvSnapshotTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void plainSnapshotMatchesReparse() throws IOException {
+        File csv = directory.resolve("plain.csv").toFile();
+        SyntheticPlacements.writeCsv(csv, 20_000, 2000, 25, false, 3);
+        assertSnapshotMatchesReparse(csv);
+    }
+
+    @Test
+    void cubeSnapshotMatchesReparse() throws IOException {
+        File csv = directory.resolve("dimensional.csv").toFile();
+        SyntheticPlacements.writeCsv(csv, 20_000, 2000, 25, true, 3);
+        assertSnapshotMatchesReparse(csv);
+    }
+
+    private static void assertSnapshotMatchesReparse(File csv) throws IOException {
+        new IncrementalCsvLoader(csv).load();
+        assertTrue(CsvSnapshot.fileFor(csv).isFile());
+
+        IncrementalCsvLoader restored = new IncrementalCsvLoader(csv);
+        restored.load();
+        assertTrue(restored.lastSummary().startsWith("Loaded snapshot"), restored.lastSummary());
+        assertMatchesReparse(csv, restored);
+
+        // A whole row, then a last row stopped inside its year
+        Files.writeString(csv.toPath(), String.join(",", row(csv, "Late Student", "2031")) + "\nCut,20",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        assertTrue(restored.refresh());
+        assertMatchesReparse(csv, restored);
+
+        // stopWatching() saves the appends the throttled snapshot skipped
+        restored.stopWatching();
+        IncrementalCsvLoader appended = new IncrementalCsvLoader(csv);
+        appended.load();
+        assertTrue(appended.lastSummary().startsWith("Loaded snapshot"), appended.lastSummary());
+        assertMatchesReparse(csv, appended);
+    }
+
+    private static void assertMatchesReparse(File csv, IncrementalCsvLoader loader) throws IOException {
+        String[] dimensions = loader.dimensions();
+        assertSameHistogram(reparse(csv, null), loader.histogram());
+        for (int d = 0; d < dimensions.length; d++) {
+            for (String value : loader.values(d)) {
+                String[] selection = new String[dimensions.length];
+                selection[d] = value;
+                assertSameHistogram(reparse(csv, selection), loader.histogram(selection));
+            }
+        }
+    }
+
+    // A row with the header's columns, the dimension columns holding their first value
+    private static String[] row(File csv, String name, String year) throws IOException {
+        String[] header = header(csv);
+        String[] row = new String[header.length];
+        row[0] = name;
+        row[1] = year;
+        for (int i = 2; i < row.length; i++) {
+            row[i] = i == 2 ? SyntheticPlacements.BRANCHES[0] : SyntheticPlacements.COMPANIES[0];
+        }
+        return row;
+    }
+
+    private static String[] header(File csv) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(csv.toPath())) {
+            return reader.readLine().split(",", -1);
+        }
+    }
+
+    // Counts of the complete rows whose dimension columns hold the selection;
+    // a last line without its newline counts once its year has four digits
+    private static Map<Integer, Integer> reparse(File csv, String[] selection) throws IOException {
+        String text = Files.readString(csv.toPath());
+        String[] lines = text.split("\n", -1);
+        Map<Integer, Integer> counts = new TreeMap<>();
+        for (int i = 1; i < lines.length; i++) {
+            String[] fields = lines[i].split(",", -1);
+            boolean last = i == lines.length - 1;
+            if (fields.length < 2 || fields[1].trim().isEmpty() || (last && fields[1].trim().length() < 4))
+                continue;
+            boolean matches = true;
+            for (int d = 0; selection != null && d < selection.length; d++) {
+                matches &= selection[d] == null || (d + 2 < fields.length && fields[d + 2].trim().equals(selection[d]));
+            }
+            if (matches)
+                counts.merge(Integer.parseInt(fields[1].trim()), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    private static void assertSameHistogram(Map<Integer, Integer> expected, YearHistogram actual) {
+        Map<Integer, Integer> counts = new TreeMap<>();
+        int[] years = actual.years();
+        for (int i = 0; i < years.length; i++) {
+            counts.put(years[i], actual.counts()[i]);
+        }
+        assertEquals(expected, counts);
+    }
+}
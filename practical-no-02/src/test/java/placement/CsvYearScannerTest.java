@@ -0,0 +1,50 @@
+package placement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+// A scan split into parallel segments must count exactly what one sequential
+// pass counts, including a last line cut off mid row
+class CsvYearScannerTest {
+    @TempDir
+    static Path directory;
+    static File csv;
+
+    @BeforeAll
+    static void writeFile() throws IOException {
+        // Large enough for several segments of CsvYearScanner.MIN_SEGMENT_SIZE
+        csv = directory.resolve("plain.csv").toFile();
+        SyntheticPlacements.writeCsv(csv, 4_000_000, 1990, 30, false, 11);
+        assertTrue(csv.length() >= 3 * CsvYearScanner.MIN_SEGMENT_SIZE);
+    }
+
+    @Test
+    void segmentsMatchSequentialScan() throws IOException {
+        try (FileChannel channel = FileChannel.open(csv.toPath(), StandardOpenOption.READ)) {
+            assertSameScan(channel, channel.size());
+        }
+    }
+
+    @Test
+    void segmentsMatchSequentialScanOfCutLastLine() throws IOException {
+        try (FileChannel channel = FileChannel.open(csv.toPath(), StandardOpenOption.READ)) {
+            // The last line without its newline is left pending
+            assertSameScan(channel, channel.size() - 1);
+        }
+    }
+
+    private static void assertSameScan(FileChannel channel, long to) throws IOException {
+        CsvYearScanner sequential = CsvYearScanner.scanRange(channel, 0, to, true, 1);
+        CsvYearScanner parallel = CsvYearScanner.scanRange(channel, 0, to, true, 4);
+        assertArrayEquals(sequential.histogram().years(), parallel.histogram().years());
+        assertArrayEquals(sequential.histogram().counts(), parallel.histogram().counts());
+        assertEquals(sequential.rows(), parallel.rows());
+        assertEquals(sequential.lineEnd(), parallel.lineEnd());
+        assertEquals(sequential.pendingYear(), parallel.pendingYear());
+    }
+}
@@ -0,0 +1,52 @@
+package placement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+// Members draw their seeds from the ensemble seed and train on the shared pool,
+// so the order workers pick them up in must not change a single bit
+class ForecastEngineTest {
+    private static final int[] YEARS = SyntheticPlacements.years(2000, 25);
+    private static final int[] COUNTS = SyntheticPlacements.counts(25, 100, 7);
+
+    @Test
+    void seededEnsemblesAreBitIdentical() {
+        assertSameMembers(train(ForecastEngine.defaultOptions()), train(ForecastEngine.defaultOptions()));
+    }
+
+    @Test
+    void seededEnsemblesWithSplitBatchesAreBitIdentical() {
+        // Each batch is also split over the pool, as well as the members
+        assertSameMembers(train(ForecastEngine.defaultOptions().threads(4)),
+                train(ForecastEngine.defaultOptions().threads(4)));
+    }
+
+    @Test
+    void otherSeedsGiveOtherMembers() {
+        TrainedModel model = train(ForecastEngine.defaultOptions());
+        TrainedModel other = ForecastEngine.trainEnsemble(YEARS, COUNTS, ForecastEngine.defaultOptions(), 4,
+                ForecastEngine.DEFAULT_SEED + 1, null);
+        assertFalse(Arrays.equals(model.members[0].parameters()[0], other.members[0].parameters()[0]));
+    }
+
+    private static TrainedModel train(TrainingOptions options) {
+        return ForecastEngine.trainEnsemble(YEARS, COUNTS, options, 4, ForecastEngine.DEFAULT_SEED, null);
+    }
+
+    static void assertSameMembers(TrainedModel expected, TrainedModel actual) {
+        assertEquals(expected.members.length, actual.members.length);
+        assertEquals(expected.maxCount, actual.maxCount);
+        assertEquals(expected.baseYear, actual.baseYear);
+        for (int m = 0; m < expected.members.length; m++) {
+            double[][] expectedParameters = expected.members[m].parameters();
+            double[][] actualParameters = actual.members[m].parameters();
+            assertEquals(expectedParameters.length, actualParameters.length);
+            for (int p = 0; p < expectedParameters.length; p++) {
+                // assertArrayEquals on doubles compares bits, not within a delta
+                assertArrayEquals(expectedParameters[p], actualParameters[p], "member " + m + " array " + p);
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package placement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.*;
+import java.util.zip.CRC32;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Version 2 files hold every ensemble member; version 1 files, written before
+// ensembles, hold one network and must still load
+class ModelFileTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void ensembleRoundTrips() throws IOException {
+        TrainedModel model = ForecastEngine.trainEnsemble(SyntheticPlacements.years(2000, 25),
+                SyntheticPlacements.counts(25, 100, 7), ForecastEngine.defaultOptions().epochs(50), 3,
+                ForecastEngine.DEFAULT_SEED, null);
+        Path path = directory.resolve("ensemble.model");
+        ModelFile.save(model, path);
+        ForecastEngineTest.assertSameMembers(model, ModelFile.load(path));
+    }
+
+    @Test
+    void singleNetworkRoundTrips() throws IOException {
+        TrainedModel model = new TrainedModel(new NeuralNetwork(3, 10, 5, 1, 11L), 812, 1998);
+        Path path = directory.resolve("single.model");
+        ModelFile.save(model, path);
+        ForecastEngineTest.assertSameMembers(model, ModelFile.load(path));
+    }
+
+    @Test
+    void versionOneLoads() throws IOException {
+        NeuralNetwork network = new NeuralNetwork(3, 10, 5, 1, 11L);
+        Path path = directory.resolve("v1.model");
+        Files.write(path, versionOne(network, 1998, 812));
+        TrainedModel loaded = ModelFile.load(path);
+        assertEquals(1, loaded.members.length);
+        ForecastEngineTest.assertSameMembers(new TrainedModel(network, 812, 1998), loaded);
+    }
+
+    @Test
+    void corruptFileIsRejected() throws IOException {
+        Path path = directory.resolve("corrupt.model");
+        byte[] bytes = versionOne(new NeuralNetwork(3, 10, 5, 1, 11L), 1998, 812);
+        bytes[40] ^= 1;
+        Files.write(path, bytes);
+        assertThrows(IOException.class, () -> ModelFile.load(path));
+    }
+
+    // The version 1 layout: magic, version, the four layer sizes, base year, max
+    // count, the parameters in NeuralNetwork.parameters() order, then a CRC32 of
+    // everything before it
+    private static byte[] versionOne(NeuralNetwork network, int baseYear, double maxCount) {
+        int doubles = 0;
+        for (double[] p : network.parameters()) {
+            doubles += p.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(4 * 7 + 8 + doubles * 8 + 8);
+        buffer.putInt(ModelFile.MAGIC).putInt(1);
+        buffer.putInt(network.inputSize()).putInt(network.hiddenSize1()).putInt(network.hiddenSize2())
+                .putInt(network.outputSize());
+        buffer.putInt(baseYear).putDouble(maxCount);
+        for (double[] p : network.parameters()) {
+            for (double value : p) {
+                buffer.putDouble(value);
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putLong(crc.getValue());
+        return buffer.array();
+    }
+}
@@ -0,0 +1,65 @@
+package placement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+// Segment cubes merged in file order must give the same codes, cells and
+// counts as a single threaded ingest
+class PlacementCubeTest {
+    private static final String HEADER = "Name,Year,Branch,Company";
+
+    @TempDir
+    static Path directory;
+    static File csv;
+
+    @BeforeAll
+    static void writeFile() throws IOException {
+        csv = directory.resolve("dimensional.csv").toFile();
+        SyntheticPlacements.writeCsv(csv, 1_500_000, 2000, 25, true, 5);
+        assertTrue(csv.length() >= 2 * CsvYearScanner.MIN_SEGMENT_SIZE);
+    }
+
+    @Test
+    void segmentsMatchSequentialIngest() throws IOException {
+        try (FileChannel channel = FileChannel.open(csv.toPath(), StandardOpenOption.READ)) {
+            assertSameCube(channel, channel.size());
+        }
+    }
+
+    @Test
+    void segmentsMatchSequentialIngestOfCutLastLine() throws IOException {
+        try (FileChannel channel = FileChannel.open(csv.toPath(), StandardOpenOption.READ)) {
+            assertSameCube(channel, channel.size() - 1);
+        }
+    }
+
+    private static void assertSameCube(FileChannel channel, long to) throws IOException {
+        PlacementCube sequential = PlacementCube.forHeader(HEADER);
+        PlacementCube parallel = PlacementCube.forHeader(HEADER);
+        assertEquals(sequential.ingest(channel, 0, to, true, 1), parallel.ingest(channel, 0, to, true, 4));
+        assertEquals(sequential.rows(), parallel.rows());
+        assertEquals(sequential.cells(), parallel.cells());
+        assertEquals(sequential.pendingYear(), parallel.pendingYear());
+        assertArrayEquals(sequential.pendingCodes(), parallel.pendingCodes());
+        assertSameHistogram(sequential.histogram(null), parallel.histogram(null));
+        for (int d = 0; d < sequential.dimensions().length; d++) {
+            assertArrayEquals(sequential.values(d), parallel.values(d));
+            assertArrayEquals(sequential.rollup(d, null), parallel.rollup(d, null));
+            for (int code = 0; code < sequential.valueCount(d); code++) {
+                int[] filter = sequential.allFilter();
+                filter[d] = code;
+                assertSameHistogram(sequential.histogram(filter), parallel.histogram(filter));
+            }
+        }
+    }
+
+    private static void assertSameHistogram(YearHistogram expected, YearHistogram actual) {
+        assertArrayEquals(expected.years(), actual.years());
+        assertArrayEquals(expected.counts(), actual.counts());
+    }
+}